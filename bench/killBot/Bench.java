@@ -0,0 +1,71 @@
+package killBot;
+
+//----------------------------------------------------------------------------------------
+//Utilitarios comuns aos benchmarks de bench/: rodadas de medicao, formatacao da tabela
+//e a soma de controle.
+//
+//Cada benchmark roda WARMUP_ROUNDS rodadas de aquecimento do JIT e depois ROUNDS
+//rodadas medidas, e guarda o menor tempo delas. Os resultados das chamadas medidas vao
+//para consume(), e a soma e impressa no fim, para o JIT nao eliminar as chamadas.
+//----------------------------------------------------------------------------------------
+
+public final class Bench {
+
+    /** Rodadas de aquecimento do JIT, descartadas. */
+    public static final int WARMUP_ROUNDS = 5;
+    /** Rodadas medidas depois do aquecimento; vale a menor. */
+    public static final int ROUNDS = 5;
+    /** Total de rodadas de cada medicao. */
+    public static final int TOTAL_ROUNDS = WARMUP_ROUNDS + ROUNDS;
+
+    private static double sink;
+
+    private Bench() {
+    }
+
+    /**
+     * Imprime o cabecalho da tabela, com a forma de medicao.
+     */
+    public static void printHeader(String columns) {
+        System.out.println("(menor tempo de " + ROUNDS + " rodadas, depois de " + WARMUP_ROUNDS
+                + " de aquecimento)");
+        System.out.println(columns);
+    }
+
+    /**
+     * Diz se a rodada conta para o resultado (ja passou do aquecimento).
+     */
+    public static boolean measured(int round) {
+        return round >= WARMUP_ROUNDS;
+    }
+
+    /**
+     * Soma um resultado a soma de controle.
+     */
+    public static void consume(double value) {
+        sink += value;
+    }
+
+    /**
+     * Imprime a soma de controle; deve ser a ultima linha do benchmark.
+     */
+    public static void printChecksum() {
+        System.out.println("(soma de controle: " + sink + ")");
+    }
+
+    public static String format(double value, int decimals) {
+        return String.format("%." + decimals + "f", value);
+    }
+
+    public static String scientific(double value) {
+        return String.format("%.2e", value);
+    }
+
+    public static String pad(String s, int width) {
+        StringBuilder sb = new StringBuilder(s);
+        while (sb.length() < width) {
+            sb.append(' ');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,64 @@
+package killBot;
+
+import robocode.AdvancedRobot;
+
+//----------------------------------------------------------------------------------------
+//Robo falso para os benchmarks de bench/: responde com o estado guardado nos campos em
+//vez de consultar o motor do Robocode, para as classes do robo rodarem fora da batalha.
+//----------------------------------------------------------------------------------------
+
+public class BenchRobot extends AdvancedRobot {
+
+    public long time;
+    public double x = 400;
+    public double y = 300;
+    public double heading;
+    public double velocity;
+    public double energy = 100;
+    public double gunHeat;
+
+    @Override
+    public long getTime() {
+        return time;
+    }
+
+    @Override
+    public double getX() {
+        return x;
+    }
+
+    @Override
+    public double getY() {
+        return y;
+    }
+
+    @Override
+    public double getHeadingRadians() {
+        return heading;
+    }
+
+    @Override
+    public double getVelocity() {
+        return velocity;
+    }
+
+    @Override
+    public double getEnergy() {
+        return energy;
+    }
+
+    @Override
+    public double getGunHeat() {
+        return gunHeat;
+    }
+
+    @Override
+    public double getBattleFieldWidth() {
+        return 800;
+    }
+
+    @Override
+    public double getBattleFieldHeight() {
+        return 600;
+    }
+}
@@ -0,0 +1,123 @@
+package killBot.gun;
+
+import java.util.Random;
+
+import killBot.Bench;
+import killBot.utils.math.FasterCalcs;
+import robocode.util.Utils;
+
+//----------------------------------------------------------------------------------------
+//Benchmark da PredictiveTargeting a 800 px: a interceptacao linear em forma fechada e a
+//circular contra o laco antigo da mira linear do Aimer (um turno por iteracao, com uma
+//raiz quadrada da distancia em cada uma, parando na primeira parede).
+//Fica em bench/, fora do pacote do robo. Compile junto com src/, por exemplo:
+//   javac -cp robocode.jar -d bench-classes $(find src bench -name '*.java')
+//   java -cp robocode.jar:bench-classes killBot.gun.PredictiveTargetingBenchmark
+//
+//O campo tem 1200x1200 para caber o alvo a 800 px em qualquer direcao; direcao,
+//velocidade do alvo e potencia da bala sao sorteadas. A circular usa 0.05 rad/turno.
+//Rodadas e soma de controle como em Bench. No fim e impressa a maior diferenca de
+//angulo entre o laco antigo e a forma fechada.
+//----------------------------------------------------------------------------------------
+
+public class PredictiveTargetingBenchmark {
+
+    private static final double FIELD = 1200;
+    private static final double RANGE = 800;
+    private static final double TURN_RATE = 0.05;
+    private static final int SCENARIOS = 1 << 12;
+    private static final int MASK = SCENARIOS - 1;
+    private static final int CALLS = 1_000_000;
+
+    private static final int OLD_LOOP = 0, CLOSED_FORM = 1, CIRCULAR = 2;
+    private static final String[] NAMES = { "laco antigo", "linear (forma fechada)", "circular" };
+
+    private static final double[] TARGET_X = new double[SCENARIOS];
+    private static final double[] TARGET_Y = new double[SCENARIOS];
+    private static final double[] HEADING = new double[SCENARIOS];
+    private static final double[] VELOCITY = new double[SCENARIOS];
+    private static final double[] BULLET_SPEED = new double[SCENARIOS];
+
+    public static void main(String[] args) {
+        fillScenarios(new Random(1));
+        double[] best = { Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE };
+        for (int round = 0; round < Bench.TOTAL_ROUNDS; round++) {
+            for (int impl = OLD_LOOP; impl <= CIRCULAR; impl++) {
+                long start = System.nanoTime();
+                Bench.consume(run(impl));
+                double perCall = (double) (System.nanoTime() - start) / CALLS;
+                if (Bench.measured(round)) {
+                    best[impl] = Math.min(best[impl], perCall);
+                }
+            }
+        }
+
+        Bench.printHeader("mira                      ns/chamada");
+        for (int impl = OLD_LOOP; impl <= CIRCULAR; impl++) {
+            System.out.println(Bench.pad(NAMES[impl], 26) + Bench.format(best[impl], 1));
+        }
+        double maxDifference = 0;
+        for (int s = 0; s < SCENARIOS; s++) {
+            maxDifference = Math.max(maxDifference, Math.abs(Utils.normalRelativeAngle(
+                    aim(OLD_LOOP, s) - aim(CLOSED_FORM, s))));
+        }
+        System.out.println("maior diferenca laco antigo x forma fechada: " + Bench.format(maxDifference, 4) + " rad");
+        Bench.printChecksum();
+    }
+
+    private static double run(int impl) {
+        double sum = 0;
+        for (int i = 0; i < CALLS; i++) {
+            sum += aim(impl, i & MASK);
+        }
+        return sum;
+    }
+
+    private static double aim(int impl, int s) {
+        double center = FIELD / 2;
+        switch (impl) {
+            case OLD_LOOP:
+                return oldLinear(center, center, TARGET_X[s], TARGET_Y[s], HEADING[s], VELOCITY[s], BULLET_SPEED[s]);
+            case CLOSED_FORM:
+                return PredictiveTargeting.linearIntercept(center, center, TARGET_X[s], TARGET_Y[s], HEADING[s],
+                        VELOCITY[s], BULLET_SPEED[s], FIELD, FIELD);
+            default:
+                return PredictiveTargeting.circularIntercept(center, center, TARGET_X[s], TARGET_Y[s], HEADING[s],
+                        VELOCITY[s], TURN_RATE, BULLET_SPEED[s], FIELD, FIELD);
+        }
+    }
+
+    /**
+     * A mira linear antiga do Aimer, como referencia.
+     */
+    private static double oldLinear(double myX, double myY, double enemyX, double enemyY, double heading,
+            double velocity, double bulletSpeed) {
+        double maxX = FIELD - 18;
+        double maxY = FIELD - 18;
+        double futureTime = 0;
+        double x = enemyX;
+        double y = enemyY;
+        while ((++futureTime) * bulletSpeed < Math.hypot(x - myX, y - myY)) {
+            x = enemyX + velocity * FasterCalcs.sin(heading) * futureTime;
+            y = enemyY + velocity * FasterCalcs.cos(heading) * futureTime;
+            if (x < 18 || y < 18 || x > maxX || y > maxY) {
+                x = Math.max(18, Math.min(maxX, x));
+                y = Math.max(18, Math.min(maxY, y));
+                break;
+            }
+        }
+        return FasterCalcs.atan2(x - myX, y - myY);
+    }
+
+    private static void fillScenarios(Random random) {
+        double center = FIELD / 2;
+        for (int i = 0; i < SCENARIOS; i++) {
+            double angle = random.nextDouble() * 2 * Math.PI;
+            TARGET_X[i] = Math.max(18, Math.min(FIELD - 18, center + RANGE * Math.sin(angle)));
+            TARGET_Y[i] = Math.max(18, Math.min(FIELD - 18, center + RANGE * Math.cos(angle)));
+            HEADING[i] = random.nextDouble() * 2 * Math.PI;
+            VELOCITY[i] = random.nextDouble() * 16 - 8;
+            BULLET_SPEED[i] = 20 - 3 * (0.1 + random.nextDouble() * 2.9);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package killBot.gun;
+
+import java.util.Random;
+
+import killBot.Bench;
+
+//----------------------------------------------------------------------------------------
+//Benchmark do decaimento do BINS: o array aninhado antigo (double[7][5][3][47], com as
+//~5 mil multiplicacoes por turno) contra o StatBuffer plano com escala global.
+//Fica em bench/, fora do pacote do robo. Compile junto com src/, por exemplo:
+//   javac -cp robocode.jar -d bench-classes $(find src bench -name '*.java')
+//   java -cp robocode.jar:bench-classes killBot.gun.StatBufferBenchmark
+//
+//Rodadas e soma de controle como em Bench. No fim, os dois buffers recebem as mesmas
+//amostras e decaimentos e o melhor bin de cada consulta e comparado, para conferir que
+//a escala preguicosa nao muda o resultado da mira.
+//----------------------------------------------------------------------------------------
+
+public class StatBufferBenchmark {
+
+    private static final int DISTANCE_BINS = Aimer.DISTANCE_BINS;
+    private static final int VELOCITY_BINS = Aimer.VELOCITY_BINS;
+    private static final int ACCEL_BINS = Aimer.ACCEL_BINS;
+    private static final int GF_BINS = Aimer.GF_BINS;
+    private static final int SEGMENTS = DISTANCE_BINS * VELOCITY_BINS * ACCEL_BINS;
+    private static final double DECAY = 0.999;
+    private static final int TICKS = 100_000;
+    private static final int CHECK_TICKS = 400_000;
+
+    public static void main(String[] args) {
+        double[][][][] nested = new double[DISTANCE_BINS][VELOCITY_BINS][ACCEL_BINS][GF_BINS];
+        StatBuffer flat = new StatBuffer(SEGMENTS, GF_BINS, DECAY);
+        nested[3][2][1][Aimer.zeroIndex] = 1;
+        flat.add(flat.offset(0), Aimer.zeroIndex, 1);
+
+        double bestNested = Double.MAX_VALUE;
+        double bestFlat = Double.MAX_VALUE;
+        for (int round = 0; round < Bench.TOTAL_ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int t = 0; t < TICKS; t++) {
+                decayNested(nested);
+            }
+            long middle = System.nanoTime();
+            for (int t = 0; t < TICKS; t++) {
+                flat.decay();
+            }
+            long end = System.nanoTime();
+            Bench.consume(nested[3][2][1][Aimer.zeroIndex] + flat.get(flat.offset(0), Aimer.zeroIndex));
+            if (Bench.measured(round)) {
+                bestNested = Math.min(bestNested, (double) (middle - start) / TICKS);
+                bestFlat = Math.min(bestFlat, (double) (end - middle) / TICKS);
+            }
+        }
+
+        Bench.printHeader("decaimento por turno       ns/turno");
+        System.out.println(Bench.pad("array aninhado", 27) + Bench.format(bestNested, 1));
+        System.out.println(Bench.pad("StatBuffer (escala)", 27) + Bench.format(bestFlat, 2));
+        System.out.println("divergencias do melhor bin: " + checkBestBin(new Random(1)) + " de " + CHECK_TICKS);
+        Bench.printChecksum();
+    }
+
+    private static void decayNested(double[][][][] bins) {
+        for (int d = 0; d < DISTANCE_BINS; d++) {
+            for (int v = 0; v < VELOCITY_BINS; v++) {
+                for (int a = 0; a < ACCEL_BINS; a++) {
+                    double[] segment = bins[d][v][a];
+                    for (int g = 0; g < GF_BINS; g++) {
+                        segment[g] *= DECAY;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Alimenta os dois buffers com as mesmas amostras e conta as consultas em que o
+     * melhor bin do StatBuffer difere do melhor bin do array aninhado.
+     */
+    private static int checkBestBin(Random random) {
+        double[][][][] nested = new double[DISTANCE_BINS][VELOCITY_BINS][ACCEL_BINS][GF_BINS];
+        StatBuffer flat = new StatBuffer(SEGMENTS, GF_BINS, DECAY);
+        int mismatches = 0;
+        for (int t = 0; t < CHECK_TICKS; t++) {
+            int d = random.nextInt(DISTANCE_BINS);
+            int v = random.nextInt(VELOCITY_BINS);
+            int a = random.nextInt(ACCEL_BINS);
+            int offset = flat.offset((d * VELOCITY_BINS + v) * ACCEL_BINS + a);
+            if (random.nextInt(20) == 0) {
+                int g = random.nextInt(GF_BINS);
+                nested[d][v][a][g] += 1;
+                flat.add(offset, g, 1);
+            }
+            int best = Aimer.zeroIndex;
+            for (int g = 0; g < GF_BINS; g++) {
+                if (nested[d][v][a][g] > nested[d][v][a][best]) {
+                    best = g;
+                }
+            }
+            if (best != flat.bestBin(offset, Aimer.zeroIndex)) {
+                mismatches++;
+            }
+            decayNested(nested);
+            flat.decay();
+        }
+        return mismatches;
+    }
+}
@@ -0,0 +1,89 @@
+package killBot.gun;
+
+import killBot.Bench;
+import killBot.BenchRobot;
+import killBot.data.GameData;
+import robocode.ScannedRobotEvent;
+
+//----------------------------------------------------------------------------------------
+//Benchmark das miras virtuais: custo por turno com 5 e com 10 miras, separado entre a
+//mira de todas elas (aimAll) e a passada unica pelas ondas compartilhadas que pontua as
+//miras (addWave + updateWaves).
+//Fica em bench/, fora do pacote do robo. Compile junto com src/, por exemplo:
+//   javac -cp robocode.jar -d bench-classes $(find src bench -name '*.java')
+//   java -cp robocode.jar:bench-classes killBot.gun.VirtualGunArrayBenchmark
+//
+//As miras sao as de src/ (frontal, linear, circular e clusterizacao), repetidas ate o
+//numero pedido. O inimigo oscila a ~500 px e uma onda e criada por turno, como no robo.
+//Rodadas e soma de controle como em Bench.
+//----------------------------------------------------------------------------------------
+
+public class VirtualGunArrayBenchmark {
+
+    private static final int SCANS = 1 << 10;
+    private static final int MASK = SCANS - 1;
+    private static final int TICKS = 100_000;
+    private static final double POWER = 1.9;
+    private static final int[] GUN_COUNTS = { 5, 10 };
+
+    private static final ScannedRobotEvent[] EVENTS = new ScannedRobotEvent[SCANS];
+
+    public static void main(String[] args) {
+        for (int i = 0; i < SCANS; i++) {
+            double angle = i * 0.01;
+            EVENTS[i] = new ScannedRobotEvent("inimigo", 100, Math.sin(angle) * 0.5, 500, angle,
+                    8 * Math.cos(i * 0.05), false);
+        }
+
+        Bench.printHeader("miras   aimAll (ns/turno)   ondas (ns/turno)   ondas em voo");
+        for (int guns : GUN_COUNTS) {
+            run(guns);
+        }
+        Bench.printChecksum();
+    }
+
+    private static void run(int guns) {
+        // O aprendizado estatico da mira de clusterizacao e das pontuacoes comeca do zero em cada caso.
+        DynamicClusteringGun.clearStats();
+        VirtualGunArray.clearScores();
+        BenchRobot robot = new BenchRobot();
+        GameData gameData = new GameData(robot);
+        DynamicClusteringGun dcGun = new DynamicClusteringGun(robot, gameData);
+        VirtualGun[] available = {
+            new HeadOnGun(gameData), new LinearGun(robot, gameData), new CircularGun(robot, gameData), dcGun
+        };
+        VirtualGunArray gunArray = new VirtualGunArray();
+        for (int g = 0; g < guns; g++) {
+            gunArray.addGun(available[g % available.length]);
+        }
+        WaveManager waveManager = new WaveManager(robot, gameData, dcGun, gunArray, new HitRateTracker());
+        double[] angles = new double[VirtualGunArray.MAX_GUNS];
+
+        double bestAim = Double.MAX_VALUE;
+        double bestWaves = Double.MAX_VALUE;
+        for (int round = 0; round < Bench.TOTAL_ROUNDS; round++) {
+            long aim = 0;
+            long waves = 0;
+            for (int t = 0; t < TICKS; t++) {
+                robot.time++;
+                gameData.update(EVENTS[(int) robot.time & MASK]);
+                long start = System.nanoTime();
+                gunArray.aimAll(POWER, angles);
+                long middle = System.nanoTime();
+                waveManager.addWave(POWER, 0, null, -1, angles, gunArray.getBestGun());
+                waveManager.updateWaves();
+                long end = System.nanoTime();
+                aim += middle - start;
+                waves += end - middle;
+                Bench.consume(angles[0]);
+            }
+            if (Bench.measured(round)) {
+                bestAim = Math.min(bestAim, (double) aim / TICKS);
+                bestWaves = Math.min(bestWaves, (double) waves / TICKS);
+            }
+        }
+        System.out.println(Bench.pad(Integer.toString(guns), 8) + Bench.pad(Bench.format(bestAim, 0), 20)
+                + Bench.pad(Bench.format(bestWaves, 0), 19)
+                + waveManager.getActiveCount());
+    }
+}
@@ -0,0 +1,98 @@
+package killBot.gun;
+
+import java.lang.management.ManagementFactory;
+
+import killBot.Bench;
+import killBot.BenchRobot;
+import killBot.data.GameData;
+import robocode.Bullet;
+import robocode.ScannedRobotEvent;
+
+//----------------------------------------------------------------------------------------
+//Benchmark das ondas da mira: custo por turno de WaveManager.addWave + updateWaves com
+//dezenas de ondas em voo, e quantos bytes esse caminho aloca por turno (deve ser zero).
+//Fica em bench/, fora do pacote do robo. Compile junto com src/, por exemplo:
+//   javac -cp robocode.jar -d bench-classes $(find src bench -name '*.java')
+//   java -cp robocode.jar:bench-classes killBot.gun.WaveManagerBenchmark
+//
+//O inimigo oscila a ~500 px e uma onda e criada por turno, como no robo; com potencia
+//1.9 cada onda leva ~35 turnos ate passar por ele. A cada 16 turnos a onda e de um tiro
+//real, que some (errou) 40 turnos depois, passando pela busca da bala em onBulletGone.
+//Os scans e as balas sao criados antes da medicao; rodadas e soma de controle como em
+//Bench. A alocacao vem do ThreadMXBean da JVM.
+//----------------------------------------------------------------------------------------
+
+public class WaveManagerBenchmark {
+
+    private static final int SCANS = 1 << 10;
+    private static final int MASK = SCANS - 1;
+    private static final int TICKS = 200_000;
+    private static final double POWER = 1.9;
+    private static final int REAL_SHOT_TICKS = 16;
+    private static final int BULLET_LIFE_TICKS = 40;
+    private static final int BULLETS = 64;
+
+    private static final ScannedRobotEvent[] EVENTS = new ScannedRobotEvent[SCANS];
+    private static final Bullet[] POOL = new Bullet[BULLETS];
+
+    public static void main(String[] args) {
+        for (int i = 0; i < SCANS; i++) {
+            double angle = i * 0.01;
+            EVENTS[i] = new ScannedRobotEvent("inimigo", 100, Math.sin(angle) * 0.5, 500, angle,
+                    8 * Math.cos(i * 0.05), false);
+        }
+        for (int i = 0; i < BULLETS; i++) {
+            POOL[i] = new Bullet(0, 400, 300, POWER, "killBot", null, true, i);
+        }
+
+        BenchRobot robot = new BenchRobot();
+        GameData gameData = new GameData(robot);
+        DynamicClusteringGun dcGun = new DynamicClusteringGun(robot, gameData);
+        VirtualGunArray gunArray = new VirtualGunArray();
+        gunArray.addGun(new HeadOnGun(gameData));
+        HitRateTracker hitTracker = new HitRateTracker();
+        WaveManager waveManager = new WaveManager(robot, gameData, dcGun, gunArray, hitTracker);
+        double[] angles = new double[VirtualGunArray.MAX_GUNS];
+
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+
+        double best = Double.MAX_VALUE;
+        double bytesPerTick = 0;
+        long inFlight = 0;
+        for (int round = 0; round < Bench.TOTAL_ROUNDS; round++) {
+            long elapsed = 0;
+            inFlight = 0;
+            long allocated = threads.getThreadAllocatedBytes(thread);
+            for (int t = 0; t < TICKS; t++) {
+                robot.time++;
+                gameData.update(EVENTS[(int) robot.time & MASK]);
+                long start = System.nanoTime();
+                if (robot.time % REAL_SHOT_TICKS == 0) {
+                    Bullet bullet = POOL[(int) (robot.time / REAL_SHOT_TICKS) % BULLETS];
+                    waveManager.addWave(POWER, 0, bullet, hitTracker.logShotFired(500, POWER), angles, 0);
+                } else {
+                    waveManager.addWave(POWER, 0, null, -1, angles, 0);
+                }
+                long firedAt = robot.time - BULLET_LIFE_TICKS;
+                if (firedAt > 0 && firedAt % REAL_SHOT_TICKS == 0) {
+                    waveManager.onBulletGone(POOL[(int) (firedAt / REAL_SHOT_TICKS) % BULLETS]);
+                }
+                waveManager.updateWaves();
+                elapsed += System.nanoTime() - start;
+                inFlight += waveManager.getActiveCount();
+            }
+            long bytes = threads.getThreadAllocatedBytes(thread) - allocated;
+            if (Bench.measured(round) && (double) elapsed / TICKS < best) {
+                best = (double) elapsed / TICKS;
+                bytesPerTick = (double) bytes / TICKS;
+            }
+        }
+
+        Bench.printHeader("ondas em voo (media)   ns/turno   ns/onda   bytes/turno");
+        double waves = (double) inFlight / TICKS;
+        System.out.println(Bench.pad(Bench.format(waves, 1), 23) + Bench.pad(Bench.format(best, 0), 11)
+                + Bench.pad(Bench.format(best / waves, 1), 10) + Bench.format(bytesPerTick, 2));
+    }
+}
@@ -0,0 +1,293 @@
+package killBot.utils.math;
+
+import java.util.Random;
+
+import killBot.Bench;
+
+//----------------------------------------------------------------------------------------
+//Benchmark e relatorio de precisao da FasterCalcs contra Math e StrictMath.
+//Fica em bench/, fora do pacote do robo. Compile junto com src/, por exemplo:
+//   javac -cp robocode.jar -d bench-classes $(find src bench -name '*.java')
+//   java -cp robocode.jar:bench-classes killBot.utils.math.FasterCalcsBenchmark
+//
+//Para cada funcao, as entradas seguem a faixa em que o robo realmente a usa
+//(angulos de heading e bearing, 8/velocidadeDaBala no asin, distancias no campo, etc.).
+//Rodadas e soma de controle como em Bench.
+//O erro e medido contra StrictMath, que e o resultado exato (arredondado) de referencia.
+//----------------------------------------------------------------------------------------
+
+public class FasterCalcsBenchmark {
+
+    private static final int INPUTS = 1 << 12;
+    private static final int MASK = INPUTS - 1;
+    private static final int CALLS = 5_000_000;
+    private static final int ACCURACY_SAMPLES = 1_000_000;
+
+    private static final int FAST = 0, MATH = 1, STRICT = 2;
+    private static final String[] FUNCTIONS = {
+        "sin", "cos", "tan", "asin", "acos", "atan", "atan2", "sqrt", "exp",
+        "normalRelativeAngle", "normalAbsoluteAngle", "floor"
+    };
+
+    private static final double[] A = new double[INPUTS];
+    private static final double[] B = new double[INPUTS];
+
+    public static void main(String[] args) {
+        Bench.printHeader(
+                "funcao                 FasterCalcs    Math  StrictMath  (ns/chamada)   erro max     erro medio");
+        for (int f = 0; f < FUNCTIONS.length; f++) {
+            fillInputs(f, new Random(42 + f), A, B);
+            double[] best = { Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE };
+            for (int round = 0; round < Bench.TOTAL_ROUNDS; round++) {
+                for (int impl = FAST; impl <= STRICT; impl++) {
+                    long start = System.nanoTime();
+                    Bench.consume(run(f, impl));
+                    double perCall = (double) (System.nanoTime() - start) / CALLS;
+                    if (Bench.measured(round)) {
+                        best[impl] = Math.min(best[impl], perCall);
+                    }
+                }
+            }
+            double[] error = accuracy(f);
+            System.out.println(Bench.pad(FUNCTIONS[f], 22) + Bench.pad(Bench.format(best[FAST], 2), 12)
+                    + Bench.pad(Bench.format(best[MATH], 2), 8) + Bench.pad(Bench.format(best[STRICT], 2), 12)
+                    + Bench.pad("", 15) + Bench.pad(Bench.scientific(error[0]), 13)
+                    + Bench.scientific(error[1]));
+        }
+        backendReport();
+        Bench.printChecksum();
+    }
+
+    //Backends de seno/cosseno: tempo de sin + cos separados contra sincos, e erro maximo.
+    //Cada linha e {resolucao, interpolar}; resolucao 0 e o backend polinomial.
+    private static final int[][] BACKENDS = {
+        { 0, 0 }, { 1024, 1 }, { 4096, 1 }, { 16384, 0 }, { 65536, 0 }
+    };
+
+    private static void backendReport() {
+        System.out.println();
+        System.out.println("backend seno/cosseno     sin+cos  sincos  (ns/par)      erro max sin  erro max cos");
+        fillInputs(0, new Random(99), A, B);
+        double[] pair = new double[2];
+        for (int[] backend : BACKENDS) {
+            if (backend[0] == 0) {
+                FasterCalcs.usePolynomialBackend();
+            } else {
+                FasterCalcs.useTableBackend(backend[0], backend[1] == 1);
+            }
+            double separate = Double.MAX_VALUE;
+            double combined = Double.MAX_VALUE;
+            for (int round = 0; round < Bench.TOTAL_ROUNDS; round++) {
+                long start = System.nanoTime();
+                double sum = 0;
+                for (int i = 0; i < CALLS; i++) {
+                    double a = A[i & MASK];
+                    sum += FasterCalcs.sin(a) * 3 + FasterCalcs.cos(a);
+                }
+                long middle = System.nanoTime();
+                for (int i = 0; i < CALLS; i++) {
+                    FasterCalcs.sincos(A[i & MASK], pair);
+                    sum += pair[0] * 3 + pair[1];
+                }
+                long end = System.nanoTime();
+                Bench.consume(sum);
+                if (Bench.measured(round)) {
+                    separate = Math.min(separate, (double) (middle - start) / CALLS);
+                    combined = Math.min(combined, (double) (end - middle) / CALLS);
+                }
+            }
+            double sinError = 0;
+            double cosError = 0;
+            for (int i = 0; i < ACCURACY_SAMPLES; i++) {
+                double a = (i * (1.0 / ACCURACY_SAMPLES) * 2 - 1) * 2 * Math.PI;
+                FasterCalcs.sincos(a, pair);
+                sinError = Math.max(sinError, Math.max(Math.abs(pair[0] - StrictMath.sin(a)),
+                        Math.abs(FasterCalcs.sin(a) - StrictMath.sin(a))));
+                cosError = Math.max(cosError, Math.max(Math.abs(pair[1] - StrictMath.cos(a)),
+                        Math.abs(FasterCalcs.cos(a) - StrictMath.cos(a))));
+            }
+            String name = backend[0] == 0 ? "polinomial"
+                    : "tabela " + backend[0] + (backend[1] == 1 ? " interp." : " proximo");
+            System.out.println(Bench.pad(name, 25) + Bench.pad(Bench.format(separate, 2), 9)
+                    + Bench.pad(Bench.format(combined, 2), 22)
+                    + Bench.pad(Bench.scientific(sinError), 14) + Bench.scientific(cosError));
+        }
+        FasterCalcs.usePolynomialBackend();
+    }
+
+    /**
+     * Gera entradas na faixa de uso real de cada funcao.
+     */
+    private static void fillInputs(int function, Random random, double[] a, double[] b) {
+        for (int i = 0; i < INPUTS; i++) {
+            switch (FUNCTIONS[function]) {
+                case "asin":
+                    // 8 / velocidadeDaBala (0.29 a 0.73) e GuessFactors vezes esse valor.
+                    a[i] = (random.nextDouble() * 2 - 1) * 8 / Rules_bulletSpeed(random.nextDouble() * 2.9 + 0.1);
+                    break;
+                case "acos":
+                    a[i] = random.nextDouble() * 2 - 1;
+                    break;
+                case "atan":
+                    // Razoes entre catetos (tamanho do robo / distancia e afins).
+                    a[i] = Math.tan((random.nextDouble() * 2 - 1) * 1.5);
+                    break;
+                case "atan2":
+                    // Diferencas de coordenadas dentro de um campo 800x600.
+                    a[i] = (random.nextDouble() * 2 - 1) * 800;
+                    b[i] = (random.nextDouble() * 2 - 1) * 600;
+                    break;
+                case "sqrt":
+                    // Distancias ao quadrado dentro do campo.
+                    a[i] = random.nextDouble() * 1_000_000;
+                    break;
+                case "exp":
+                    // Kernels e decaimentos: expoentes negativos.
+                    a[i] = -random.nextDouble() * 10;
+                    break;
+                case "tan":
+                    a[i] = (random.nextDouble() * 2 - 1) * 1.5;
+                    break;
+                case "normalRelativeAngle":
+                case "normalAbsoluteAngle":
+                case "floor":
+                    a[i] = (random.nextDouble() * 2 - 1) * 4 * Math.PI;
+                    break;
+                default:
+                    // sin/cos: headings e bearings somados a offsets, em [-2pi, 2pi].
+                    a[i] = (random.nextDouble() * 2 - 1) * 2 * Math.PI;
+            }
+        }
+    }
+
+    /** Velocidade da bala sem depender do robocode.jar. */
+    private static double Rules_bulletSpeed(double power) {
+        return 20 - 3 * power;
+    }
+
+    private static double run(int function, int impl) {
+        double sum = 0;
+        switch (function) {
+            case 0:
+                if (impl == FAST) for (int i = 0; i < CALLS; i++) sum += FasterCalcs.sin(A[i & MASK]);
+                else if (impl == MATH) for (int i = 0; i < CALLS; i++) sum += Math.sin(A[i & MASK]);
+                else for (int i = 0; i < CALLS; i++) sum += StrictMath.sin(A[i & MASK]);
+                break;
+            case 1:
+                if (impl == FAST) for (int i = 0; i < CALLS; i++) sum += FasterCalcs.cos(A[i & MASK]);
+                else if (impl == MATH) for (int i = 0; i < CALLS; i++) sum += Math.cos(A[i & MASK]);
+                else for (int i = 0; i < CALLS; i++) sum += StrictMath.cos(A[i & MASK]);
+                break;
+            case 2:
+                if (impl == FAST) for (int i = 0; i < CALLS; i++) sum += FasterCalcs.tan(A[i & MASK]);
+                else if (impl == MATH) for (int i = 0; i < CALLS; i++) sum += Math.tan(A[i & MASK]);
+                else for (int i = 0; i < CALLS; i++) sum += StrictMath.tan(A[i & MASK]);
+                break;
+            case 3:
+                if (impl == FAST) for (int i = 0; i < CALLS; i++) sum += FasterCalcs.asin(A[i & MASK]);
+                else if (impl == MATH) for (int i = 0; i < CALLS; i++) sum += Math.asin(A[i & MASK]);
+                else for (int i = 0; i < CALLS; i++) sum += StrictMath.asin(A[i & MASK]);
+                break;
+            case 4:
+                if (impl == FAST) for (int i = 0; i < CALLS; i++) sum += FasterCalcs.acos(A[i & MASK]);
+                else if (impl == MATH) for (int i = 0; i < CALLS; i++) sum += Math.acos(A[i & MASK]);
+                else for (int i = 0; i < CALLS; i++) sum += StrictMath.acos(A[i & MASK]);
+                break;
+            case 5:
+                if (impl == FAST) for (int i = 0; i < CALLS; i++) sum += FasterCalcs.atan(A[i & MASK]);
+                else if (impl == MATH) for (int i = 0; i < CALLS; i++) sum += Math.atan(A[i & MASK]);
+                else for (int i = 0; i < CALLS; i++) sum += StrictMath.atan(A[i & MASK]);
+                break;
+            case 6:
+                if (impl == FAST) for (int i = 0; i < CALLS; i++) sum += FasterCalcs.atan2(A[i & MASK], B[i & MASK]);
+                else if (impl == MATH) for (int i = 0; i < CALLS; i++) sum += Math.atan2(A[i & MASK], B[i & MASK]);
+                else for (int i = 0; i < CALLS; i++) sum += StrictMath.atan2(A[i & MASK], B[i & MASK]);
+                break;
+            case 7:
+                if (impl == FAST) for (int i = 0; i < CALLS; i++) sum += FasterCalcs.sqrt(A[i & MASK]);
+                else if (impl == MATH) for (int i = 0; i < CALLS; i++) sum += Math.sqrt(A[i & MASK]);
+                else for (int i = 0; i < CALLS; i++) sum += StrictMath.sqrt(A[i & MASK]);
+                break;
+            case 8:
+                if (impl == FAST) for (int i = 0; i < CALLS; i++) sum += FasterCalcs.exp(A[i & MASK]);
+                else if (impl == MATH) for (int i = 0; i < CALLS; i++) sum += Math.exp(A[i & MASK]);
+                else for (int i = 0; i < CALLS; i++) sum += StrictMath.exp(A[i & MASK]);
+                break;
+            case 9:
+                if (impl == FAST) for (int i = 0; i < CALLS; i++) sum += FasterCalcs.normalRelativeAngle(A[i & MASK]);
+                else for (int i = 0; i < CALLS; i++) sum += robocode.util.Utils.normalRelativeAngle(A[i & MASK]);
+                break;
+            case 10:
+                if (impl == FAST) for (int i = 0; i < CALLS; i++) sum += FasterCalcs.normalAbsoluteAngle(A[i & MASK]);
+                else for (int i = 0; i < CALLS; i++) sum += robocode.util.Utils.normalAbsoluteAngle(A[i & MASK]);
+                break;
+            default:
+                if (impl == FAST) for (int i = 0; i < CALLS; i++) sum += FasterCalcs.floor(A[i & MASK]);
+                else if (impl == MATH) for (int i = 0; i < CALLS; i++) sum += Math.floor(A[i & MASK]);
+                else for (int i = 0; i < CALLS; i++) sum += StrictMath.floor(A[i & MASK]);
+        }
+        return sum;
+    }
+
+    /**
+     * Erro absoluto maximo e medio da FasterCalcs contra a referencia.
+     * Angulos normalizados sao comparados pela diferenca angular.
+     */
+    private static double[] accuracy(int function) {
+        Random random = new Random(7 + function);
+        double[] a = new double[INPUTS];
+        double[] b = new double[INPUTS];
+        double max = 0;
+        double total = 0;
+        for (int n = 0; n < ACCURACY_SAMPLES; n += INPUTS) {
+            fillInputs(function, random, a, b);
+            for (int i = 0; i < INPUTS; i++) {
+                double error = Math.abs(fast(function, a[i], b[i]) - reference(function, a[i], b[i]));
+                if (function == 9 || function == 10) {
+                    error = Math.min(error, 2 * Math.PI - error);
+                }
+                if (function == 2) {
+                    // tan cresce sem limite perto de pi/2: usa o erro relativo.
+                    error /= Math.max(1, Math.abs(reference(function, a[i], b[i])));
+                }
+                max = Math.max(max, error);
+                total += error;
+            }
+        }
+        return new double[] { max, total / ACCURACY_SAMPLES };
+    }
+
+    private static double fast(int function, double a, double b) {
+        switch (function) {
+            case 0: return FasterCalcs.sin(a);
+            case 1: return FasterCalcs.cos(a);
+            case 2: return FasterCalcs.tan(a);
+            case 3: return FasterCalcs.asin(a);
+            case 4: return FasterCalcs.acos(a);
+            case 5: return FasterCalcs.atan(a);
+            case 6: return FasterCalcs.atan2(a, b);
+            case 7: return FasterCalcs.sqrt(a);
+            case 8: return FasterCalcs.exp(a);
+            case 9: return FasterCalcs.normalRelativeAngle(a);
+            case 10: return FasterCalcs.normalAbsoluteAngle(a);
+            default: return FasterCalcs.floor(a);
+        }
+    }
+
+    private static double reference(int function, double a, double b) {
+        switch (function) {
+            case 0: return StrictMath.sin(a);
+            case 1: return StrictMath.cos(a);
+            case 2: return StrictMath.tan(a);
+            case 3: return StrictMath.asin(a);
+            case 4: return StrictMath.acos(a);
+            case 5: return StrictMath.atan(a);
+            case 6: return StrictMath.atan2(a, b);
+            case 7: return StrictMath.sqrt(a);
+            case 8: return StrictMath.exp(a);
+            case 9: return robocode.util.Utils.normalRelativeAngle(a);
+            case 10: return robocode.util.Utils.normalAbsoluteAngle(a);
+            default: return StrictMath.floor(a);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package killBot.utils.math;
+
+import java.util.Random;
+
+import killBot.Bench;
+
+//----------------------------------------------------------------------------------------
+//Benchmark da MovementPredictor: quantas previsoes completas (do estado atual ate a
+//onda alcancar o robo) cabem em um milissegundo.
+//Fica em bench/, fora do pacote do robo. Compile junto com src/, por exemplo:
+//   javac -cp robocode.jar -d bench-classes $(find src bench -name '*.java')
+//   java -cp robocode.jar:bench-classes killBot.utils.math.MovementPredictorBenchmark
+//
+//Os cenarios sao sorteados em um campo 800x600: nossa posicao, direcao e velocidade,
+//a origem da onda a 100-700 px e a potencia da bala entre 0.1 e 3. Cada opcao de
+//movimento (horario, anti-horario, parar) e medida separadamente, e a orbita tambem
+//com o wall smoothing reduzido do nivel mais baixo do BudgetGovernor.
+//Rodadas e soma de controle como em Bench.
+//----------------------------------------------------------------------------------------
+
+public class MovementPredictorBenchmark {
+
+    private static final double WIDTH = 800;
+    private static final double HEIGHT = 600;
+    private static final int SCENARIOS = 1 << 10;
+    private static final int MASK = SCENARIOS - 1;
+    private static final int CALLS = 200_000;
+
+    private static final MovementPredictor.State[] STARTS = new MovementPredictor.State[SCENARIOS];
+    private static final double[] ORIGIN_X = new double[SCENARIOS];
+    private static final double[] ORIGIN_Y = new double[SCENARIOS];
+    private static final long[] FIRE_TIME = new long[SCENARIOS];
+    private static final double[] BULLET_SPEED = new double[SCENARIOS];
+
+    public static void main(String[] args) {
+        fillScenarios(new Random(42));
+        MovementPredictor predictor = new MovementPredictor(WIDTH, HEIGHT);
+        predictor.setPreferredDistance(300);
+
+        Bench.printHeader("opcao                        previsoes/ms   ns/previsao   turnos/previsao   ns/turno");
+        run(predictor, "orbita horaria", MovementPredictor.CLOCKWISE);
+        run(predictor, "orbita anti-horaria", MovementPredictor.COUNTER_CLOCKWISE);
+        run(predictor, "parar", MovementPredictor.STOP);
+        predictor.setWallSmoothingIterations(25);
+        run(predictor, "orbita horaria (smoothing 25)", MovementPredictor.CLOCKWISE);
+        Bench.printChecksum();
+    }
+
+    private static void run(MovementPredictor predictor, String name, int option) {
+        MovementPredictor.State out = new MovementPredictor.State();
+        double best = Double.MAX_VALUE;
+        long ticks = 0;
+        for (int round = 0; round < Bench.TOTAL_ROUNDS; round++) {
+            ticks = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < CALLS; i++) {
+                int s = i & MASK;
+                ticks += predictor.predict(STARTS[s], ORIGIN_X[s], ORIGIN_Y[s], FIRE_TIME[s], BULLET_SPEED[s], option,
+                        out);
+                Bench.consume(out.x);
+            }
+            double perCall = (double) (System.nanoTime() - start) / CALLS;
+            if (Bench.measured(round)) {
+                best = Math.min(best, perCall);
+            }
+        }
+        double ticksPerCall = (double) ticks / CALLS;
+        System.out.println(Bench.pad(name, 29) + Bench.pad(Bench.format(1_000_000 / best, 0), 15)
+                + Bench.pad(Bench.format(best, 0), 14)
+                + Bench.pad(Bench.format(ticksPerCall, 1), 18) + Bench.format(best / ticksPerCall, 1));
+    }
+
+    private static void fillScenarios(Random random) {
+        for (int i = 0; i < SCENARIOS; i++) {
+            double x = 18 + random.nextDouble() * (WIDTH - 36);
+            double y = 18 + random.nextDouble() * (HEIGHT - 36);
+            MovementPredictor.State state = new MovementPredictor.State();
+            state.set(x, y, random.nextDouble() * 2 * Math.PI, random.nextDouble() * 16 - 8, 100);
+            STARTS[i] = state;
+
+            double distance = 100 + random.nextDouble() * 600;
+            double angle = random.nextDouble() * 2 * Math.PI;
+            ORIGIN_X[i] = Math.max(18, Math.min(WIDTH - 18, x + Math.sin(angle) * distance));
+            ORIGIN_Y[i] = Math.max(18, Math.min(HEIGHT - 18, y + Math.cos(angle) * distance));
+            FIRE_TIME[i] = 100 - random.nextInt(4);
+            BULLET_SPEED[i] = 20 - 3 * (0.1 + random.nextDouble() * 2.9);
+        }
+    }
+}
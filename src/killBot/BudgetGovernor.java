@@ -0,0 +1,179 @@
+package killBot;
+
+import java.io.PrintStream;
+
+import killBot.gun.DynamicClusteringGun;
+import killBot.movement.MovementControl;
+import killBot.movement.waveSurfing.WaveSurfer;
+import killBot.utils.Log;
+import killBot.utils.math.MovementPredictor;
+
+/**
+ * Controla quanto processamento o robô gasta por turno.
+ *
+ * A cada turno recebe o tempo gasto (medido pelo {@link killBot.utils.TickProfiler})
+ * e mantém uma média móvel. Se a média se aproxima do alvo, ou se um turno foi
+ * perdido, desce um nível de qualidade; se sobra folga por um tempo, sobe um
+ * nível. Cada nível define as cargas ajustáveis:
+ * - pontos candidatos, ondas consideradas e prazo do surf preciso do {@link WaveSurfer};
+ * - vizinhos (k) e prazo da busca da {@link DynamicClusteringGun};
+ * - iterações do wall smoothing do {@link MovementControl}.
+ * O nível 0 é a configuração completa (os valores padrão de cada classe).
+ */
+public class BudgetGovernor {
+
+    /** Alvo padrão de tempo por turno, em nanossegundos. */
+    public static final long DEFAULT_TARGET_NANOS = 2_000_000;
+
+    // Cargas por nível (0 = completo).
+    private static final int[] SURF_POINTS = { WaveSurfer.DEFAULT_CANDIDATE_POINTS, 14, 10, 6 };
+    private static final int[] SURF_WAVES = { WaveSurfer.DEFAULT_MAX_WAVES, 4, 2, 1 };
+    private static final long[] SURF_BUDGET = { WaveSurfer.DEFAULT_SURF_BUDGET, 250_000, 120_000, 50_000 };
+    private static final int[] DC_K = { DynamicClusteringGun.DEFAULT_K, 18, 12, 6 };
+    private static final long[] DC_BUDGET = { DynamicClusteringGun.DEFAULT_TIME_BUDGET, 300_000, 150_000, 60_000 };
+    private static final int[] SMOOTHING_ITERATIONS = { MovementPredictor.DEFAULT_WALL_SMOOTHING_ITERATIONS, 60, 40, 25 };
+    public static final int LEVELS = SURF_POINTS.length;
+
+    /** Peso do turno mais recente na média móvel. */
+    private static final double SMOOTHING = 0.1;
+    /** Acima desta fração do alvo, a qualidade desce. */
+    private static final double DEGRADE_FRACTION = 0.8;
+    /** Abaixo desta fração do alvo, por {@link #RESTORE_TICKS} turnos seguidos, a qualidade sobe. */
+    private static final double RESTORE_FRACTION = 0.4;
+    private static final int RESTORE_TICKS = 50;
+    /** Turnos mínimos entre duas descidas, para a média refletir a mudança anterior. */
+    private static final int DEGRADE_COOLDOWN = 10;
+
+    private final WaveSurfer waveSurfer;
+    private final MovementControl movementControl;
+    private final DynamicClusteringGun dcGun;
+
+    private long targetNanos = DEFAULT_TARGET_NANOS;
+    private int level = 0;
+    private double averageNanos = 0;
+    private int ticksWithHeadroom = 0;
+    private int ticksSinceChange = DEGRADE_COOLDOWN;
+
+    // Intervenções no round.
+    private int degrades = 0;
+    private int restores = 0;
+    private final int[] ticksAtLevel = new int[LEVELS];
+
+    public BudgetGovernor(WaveSurfer waveSurfer, MovementControl movementControl, DynamicClusteringGun dcGun)
+    {
+        this.waveSurfer = waveSurfer;
+        this.movementControl = movementControl;
+        this.dcGun = dcGun;
+        apply();
+    }
+
+    /**
+     * Define o alvo de tempo por turno.
+     * @param nanos O alvo em nanossegundos.
+     */
+    public void setTargetNanos(long nanos)
+    {
+        this.targetNanos = Math.max(1, nanos);
+    }
+
+    /**
+     * Registra o tempo gasto no turno e ajusta o nível se preciso.
+     * @param tickNanos O tempo do turno, em nanossegundos.
+     * @param time O turno atual (para o log).
+     */
+    public void onTick(long tickNanos, long time)
+    {
+        averageNanos = averageNanos == 0 ? tickNanos : averageNanos + SMOOTHING * (tickNanos - averageNanos);
+        ticksAtLevel[level]++;
+        ticksSinceChange++;
+
+        if(averageNanos > targetNanos * DEGRADE_FRACTION)
+        {
+            ticksWithHeadroom = 0;
+            if(ticksSinceChange >= DEGRADE_COOLDOWN)
+            {
+                degrade(time);
+            }
+        }
+        else if(averageNanos < targetNanos * RESTORE_FRACTION)
+        {
+            if(++ticksWithHeadroom >= RESTORE_TICKS && level > 0)
+            {
+                ticksWithHeadroom = 0;
+                level--;
+                restores++;
+                ticksSinceChange = 0;
+                apply();
+                if(Log.INFOS) Log.line(time).append("BudgetGovernor: folga, subindo para o nível ").append(level).end();
+            }
+        }
+        else
+        {
+            ticksWithHeadroom = 0;
+        }
+    }
+
+    /**
+     * Um turno perdido desce a qualidade na hora, sem esperar a média.
+     * @param time O turno atual (para o log).
+     */
+    public void onSkippedTurn(long time)
+    {
+        ticksWithHeadroom = 0;
+        degrade(time);
+    }
+
+    private void degrade(long time)
+    {
+        if(level == LEVELS - 1)
+        {
+            return;
+        }
+        level++;
+        degrades++;
+        ticksSinceChange = 0;
+        apply();
+        if(Log.INFOS) Log.line(time).append("BudgetGovernor: média de ").append(averageNanos / 1000.0, 1)
+                .append("us, descendo para o nível ").append(level).end();
+    }
+
+    private void apply()
+    {
+        waveSurfer.setCandidatePoints(SURF_POINTS[level]);
+        waveSurfer.setMaxWaves(SURF_WAVES[level]);
+        waveSurfer.setSurfBudget(SURF_BUDGET[level]);
+        waveSurfer.setPredictionSmoothingIterations(SMOOTHING_ITERATIONS[level]);
+        dcGun.setK(DC_K[level]);
+        dcGun.setTimeBudget(DC_BUDGET[level]);
+        movementControl.setWallSmoothingIterations(SMOOTHING_ITERATIONS[level]);
+    }
+
+    public int getLevel()
+    {
+        return level;
+    }
+
+    public int getDegrades()
+    {
+        return degrades;
+    }
+
+    public int getRestores()
+    {
+        return restores;
+    }
+
+    /**
+     * Imprime quantas vezes o governador interveio no round e quanto tempo ficou em cada nível.
+     */
+    public void printReport(PrintStream out)
+    {
+        StringBuilder levels = new StringBuilder();
+        for(int i = 0; i < LEVELS; i++)
+        {
+            levels.append(i == 0 ? "" : ", ").append(i).append(": ").append(ticksAtLevel[i]);
+        }
+        out.println("BudgetGovernor: " + degrades + " descidas, " + restores + " subidas, nível final "
+                + level + ", turnos por nível {" + levels + "}");
+    }
+}
@@ -3,12 +3,19 @@ package killBot;
 import robocode.*;
 import killBot.radar.RadarControl;
 import killBot.gun.Aimer;
+import killBot.gun.DynamicClusteringGun;
+import killBot.gun.VirtualGunArray;
 import killBot.gun.HitRateTracker;
 import killBot.gun.WaveManager;
+import killBot.utils.Log;
+import killBot.utils.TickProfiler;
 import killBot.utils.math.AuxiliarFunctions;
 import killBot.utils.math.FasterCalcs;
+import killBot.utils.math.PreciseEscapeAngle;
+import killBot.data.BotState;
+import killBot.data.EnemyRegistry;
 import killBot.data.GameData;
-import java.awt.geom.Point2D;
+import killBot.data.ProfileStore;
 import java.util.ArrayList;
 import robocode.util.Utils;
 import killBot.movement.MovementControl;
@@ -18,7 +25,16 @@ import killBot.movement.waveSurfing.WaveSurfer;
 
 public class KillBot extends AdvancedRobot{
 
+    /**
+     * Backend de seno/cosseno da FasterCalcs: 0 usa o polinomial, outro valor usa
+     * a tabela com essa resolução (ver FasterCalcsBenchmark para escolher).
+     */
+    private static final int TRIG_TABLE_RESOLUTION = 0;
+    /** Com a tabela, true interpola entre pontos e false usa o ponto mais próximo. */
+    private static final boolean TRIG_TABLE_INTERPOLATE = false;
+
     private Enemy targetEnemy; // alvo atual
+    private final EnemyRegistry enemies = new EnemyRegistry(); // todos os inimigos do round
     private ArrayList<BulletWave> activeWaves = new ArrayList<>(); // lista que armazena as ondas de tiro do inimigo
     private WaveSurfer waveSurfer;
     private MovementControl movementControl;
@@ -28,18 +44,36 @@ public class KillBot extends AdvancedRobot{
     private HitRateTracker hitTracker;
     private WaveManager waveManager;
     private Aimer aimer;
+    private DynamicClusteringGun dcGun;
+    private ProfileStore profileStore;
+    private final TickProfiler profiler = new TickProfiler();
+    private BudgetGovernor governor;
+    /** Área de trabalho para os ângulos de escape das ondas inimigas. */
+    private final double[] escapeAngles = new double[2];
+    /** Estados (nosso e do inimigo) no turno em que o inimigo atirou, reaproveitados. */
+    private final BotState enemyFireState = new BotState();
+    private final BotState myFireState = new BotState();
     //private Movement move;
 
     public void run()
     {
         //inicializa todas as variaveis que precisam ser inicializadas
+        if (TRIG_TABLE_RESOLUTION > 0) {
+            FasterCalcs.useTableBackend(TRIG_TABLE_RESOLUTION, TRIG_TABLE_INTERPOLATE);
+        } else {
+            FasterCalcs.usePolynomialBackend();
+        }
         gameData = new GameData(this);
         hitTracker = new HitRateTracker();
         radar = new RadarControl(this);
-        waveManager = new WaveManager(this, gameData);
-        aimer = new Aimer(this, waveManager, gameData, hitTracker);
+        dcGun = new DynamicClusteringGun(this, gameData);
+        VirtualGunArray gunArray = new VirtualGunArray();
+        waveManager = new WaveManager(this, gameData, dcGun, gunArray, hitTracker);
+        aimer = new Aimer(this, waveManager, gameData, hitTracker, dcGun, gunArray);
         movementControl = new MovementControl(this);
         waveSurfer = new WaveSurfer(this, activeWaves, movementControl);
+        profileStore = new ProfileStore(this); // o perfil do oponente so e lido no primeiro scan
+        governor = new BudgetGovernor(waveSurfer, movementControl, dcGun);
 
         //sets iniciais padroes
         setAdjustGunForRobotTurn(true);
@@ -52,12 +86,23 @@ public class KillBot extends AdvancedRobot{
         while(true)
         {
             //continuamente roda a logica de busca
+            profiler.beginTick();
+            selectTarget();
             radar.radarLogic();
+            profiler.end(TickProfiler.RADAR);
             waveManager.updateWaves();
-            aimer.shoot();
+            profiler.end(TickProfiler.WAVES);
+            Bullet fired = aimer.shoot();
+            if (fired != null && targetEnemy != null) {
+                targetEnemy.onShotFired();
+            }
+            profiler.end(TickProfiler.SHOOT);
             aimer.decayBINS();
+            profiler.end(TickProfiler.DECAY);
 
             if (movementControl.handleWallProximity()) {
+                profiler.endTick();
+                governor.onTick(profiler.getLastTickNanos(), getTime());
                 execute();
                 continue; // Pula para a próxima iteração do loop
             }
@@ -67,7 +112,7 @@ public class KillBot extends AdvancedRobot{
                             targetEnemy.getY()) > MovementControl.MIN_DANGER_DISTANCE) {
 
                 inContactEvasion = false;
-                out.println("KillBot: Distância segura atingida. Saindo do modo de FUGA DE CONTATO.");
+                if(Log.INFOS) Log.line(getTime()).append("KillBot: Distância segura atingida. Saindo do modo de FUGA DE CONTATO.").end();
             }
             if (getRadarTurnRemaining() == 0) { // Se o radar não está girando por alguma ação
                 setTurnRadarRight(360); // Gira 360 graus para escanear a área
@@ -90,15 +135,20 @@ public class KillBot extends AdvancedRobot{
                     // robo)");
                     // se a bala ja passou pelo robo ou o atingiu remove a wave
                     activeWaves.remove(i);
+                    removeFromOwner(wave);
                 }
             }
             // out.println("Ondas Ativas (Após a remoção): " + activeWaves.size());
             if (activeWaves.isEmpty() || targetEnemy == null) {
                 movementControl.doStandardMovement();
             } else {
+                profiler.begin();
                 waveSurfer.doWaveSurfing();
+                profiler.end(TickProfiler.SURF);
             }
 
+            profiler.endTick();
+            governor.onTick(profiler.getLastTickNanos(), getTime());
             execute(); 
         }
     }
@@ -106,65 +156,156 @@ public class KillBot extends AdvancedRobot{
 
     public void onScannedRobot(ScannedRobotEvent e)
     {
-        //chama a funcao de travar a mira assim que scaneia um robo
-        radar.onScannedRobot(e);
-        gameData.update(e);
-          double oldEnergy = 0;
-        if (targetEnemy != null && e.getName().equals(targetEnemy.getEnemyName())) { // caso ja tenha inimigo rastreado
-            oldEnergy = targetEnemy.getLastEnemyEnergy();
-        } else {
-            targetEnemy = new Enemy(e.getName()); // Cria o inimigo antes de usar
-            movementControl.setTargetEnemy(targetEnemy);
-            oldEnergy = e.getEnergy() + 0.1;
-            System.out.println("ONSCANNED: Novo inimigo: " + e.getName() + ". Energia inicial: " + e.getEnergy());
+        // o perfil e lido uma vez por batalha; os scans seguintes nao fazem nada
+        profileStore.onScan(e.getName(), getOthers());
 
-        }
+        // cada inimigo tem seu registro; o scan so atualiza o dele
+        Enemy scanned = enemies.onScan(e, getX(), getY(), getHeadingRadians());
 
-        // Calcular a posicao do inimigo
+        //radar e mira acompanham so o alvo; a troca de alvo e feita uma vez por turno em selectTarget()
+        if (scanned == targetEnemy) {
+            radar.onScannedRobot(e);
+            gameData.update(e);
+        }
 
         double absoluteBearingRadians = getHeadingRadians() + e.getBearingRadians();
-        double enemyX = getX() + e.getDistance() * FasterCalcs.sin(absoluteBearingRadians);
-        double enemyY = getY() + e.getDistance() * FasterCalcs.cos(absoluteBearingRadians);
-
-        targetEnemy.updateEnemyData(enemyX, enemyY, e.getHeadingRadians(), e.getVelocity(), e.getEnergy(),
-                getTime());
-
-
-        double energyDrop = oldEnergy - targetEnemy.getLastEnemyEnergy();
-
-        if (energyDrop > 0.2 && energyDrop <= 3.0 && targetEnemy.getLastEnemyEnergy() > 0) {
-            double bulletDirectAngle = AuxiliarFunctions.absoluteBearing(targetEnemy.getX(), targetEnemy.getY(), getX(),
-                    getY());
+        double energyDrop = scanned.getEnergyDrop();
+
+        if (energyDrop > 0.2 && energyDrop <= 3.0 && scanned.getLastEnemyEnergy() > 0) {
+            // A queda de energia aparece um turno depois do tiro: a onda nasce na
+            // posição do inimigo no turno anterior, mirando onde nós estávamos nele.
+            long fireTime = getTime() - 1;
+            scanned.getHistory().stateAt(fireTime, enemyFireState, getBattleFieldWidth(), getBattleFieldHeight());
+            gameData.myStateAt(fireTime, myFireState);
+            double originX = enemyFireState.location.x;
+            double originY = enemyFireState.location.y;
+            double bulletDirectAngle = AuxiliarFunctions.absoluteBearing(originX, originY,
+                    myFireState.location.x, myFireState.location.y);
 
             // Calcula a direção do seu robô em relação ao inimigo.
             double angleOffset = Utils.normalRelativeAngle(absoluteBearingRadians - getHeadingRadians());
             int direction = (angleOffset > 0) ? 1 : -1;
 
-            activeWaves.add(new BulletWave(targetEnemy.getX(), targetEnemy.getY(), getTime(), energyDrop,
-                    bulletDirectAngle, direction));
-            out.println("NOVA ONDA DETECTADA! Power: " + energyDrop + " - Turno: " + getTime());
+            BulletWave wave = new BulletWave(originX, originY, fireTime, energyDrop,
+                    bulletDirectAngle, direction);
+
+            // Ângulos de escape precisos do nosso robô, vistos a partir do inimigo.
+            double myLateralVelocity = myFireState.velocity * FasterCalcs.sin(myFireState.heading - bulletDirectAngle);
+            PreciseEscapeAngle.compute(originX, originY, myFireState.location.x, myFireState.location.y,
+                    myLateralVelocity, energyDrop, getBattleFieldWidth(), getBattleFieldHeight(), escapeAngles);
+            wave.setEscapeAngles(escapeAngles[0], escapeAngles[1]);
+            wave.setOwner(scanned);
+            scanned.getWaves().add(wave);
+            activeWaves.add(wave);
+            if(Log.INFOS) Log.line(getTime()).append("NOVA ONDA DETECTADA! Power: ").append(energyDrop).end();
         } else {
-            out.println("ONSCANNED: Queda de energia não gerou onda. energyDrop: " + energyDrop);
+            if(Log.DEBUG) Log.line(getTime()).append("ONSCANNED: Queda de energia não gerou onda. energyDrop: ")
+                    .append(energyDrop).end();
         }
-        out.println("Inimigo escaneado: " + e.getName() + ", Dist: " + e.getDistance() + ", Energia: " + e.getEnergy()
-                + ", Queda Energia: " + energyDrop);
+        if(Log.DEBUG) Log.line(getTime()).append("Inimigo escaneado: ").append(e.getName())
+                .append(", Dist: ").append(e.getDistance()).append(", Energia: ").append(e.getEnergy())
+                .append(", Queda Energia: ").append(energyDrop).end();
+
+    }
 
+    public void onRoundEnded(RoundEndedEvent e)
+    {
+        // grava o que foi aprendido sobre o oponente para as proximas batalhas
+        profileStore.save();
+        Log.dump(out);
+        profiler.printRoundReport(out);
+        governor.printReport(out);
+        out.println("WaveSurfer: " + waveSurfer.getPrunedBranches() + " opções podadas, "
+                + waveSurfer.getBudgetCutoffs() + " cortes por prazo");
+    }
+
+    public void onBattleEnded(BattleEndedEvent e)
+    {
+        TickProfiler.printBattleReport(out);
+    }
+
+    public void onSkippedTurn(SkippedTurnEvent e)
+    {
+        profiler.onSkippedTurn();
+        governor.onSkippedTurn(getTime());
+        if(Log.WARNINGS) Log.line(getTime()).append("TURNO PERDIDO: ").append(e.getSkippedTurn()).end();
     }
 
     public void onBulletHit(BulletHitEvent e)
     {
-        Point2D.Double impactLocation = new Point2D.Double(
-            e.getBullet().getX(), e.getBullet().getY()
-        );
-        aimer.onBulletHit(impactLocation, e.getBullet().getPower());
+        aimer.onBulletHit(e.getBullet());
+        Enemy victim = enemies.get(e.getName());
+        if (victim != null) {
+            victim.onHitByOurBullet(e.getEnergy()); // a energia perdida nao foi um tiro dele
+        }
+    }
+
+    public void onRobotDeath(RobotDeathEvent e)
+    {
+        enemies.onDeath(e.getName());
+        if (targetEnemy != null && targetEnemy.getEnemyName().equals(e.getName())) {
+            // o proximo turno com scan escolhe um novo alvo
+            targetEnemy = null;
+            gameData.clearEnemy();
+            waveManager.forgetTarget();
+        }
+    }
+
+    /**
+     * Escolhe o alvo uma vez por turno, depois de todos os scans do turno.
+     * So troca de alvo se o novo alvo foi escaneado neste turno, para o GameData
+     * recomecar com um estado dele e nao com o do alvo anterior.
+     */
+    private void selectTarget()
+    {
+        Enemy target = enemies.selectTarget(getX(), getY(), getTime(), targetEnemy);
+        if (target == null || target == targetEnemy || target.getcTime() != getTime()) {
+            return;
+        }
+        if (targetEnemy != null) {
+            gameData.clearEnemy(); // o historico do GameData e so do alvo
+            waveManager.forgetTarget(); // as ondas em voo foram medidas contra o alvo anterior
+        }
+        targetEnemy = target;
+        movementControl.setTargetEnemy(targetEnemy);
+        radar.onScannedRobot(target.getLastScan());
+        gameData.update(target.getLastScan());
+        if(Log.INFOS) Log.line(getTime()).append("Novo alvo: ").append(targetEnemy.getEnemyName())
+                .append(". Energia: ").append(targetEnemy.getLastEnemyEnergy()).end();
+    }
+
+    /**
+     * Remove a onda da lista do inimigo que a disparou.
+     */
+    private void removeFromOwner(BulletWave wave) {
+        if (wave.getOwner() != null) {
+            wave.getOwner().getWaves().remove(wave);
+        }
+    }
+
+    public void onBulletHitBullet(BulletHitBulletEvent e)
+    {
+        waveManager.onBulletGone(e.getBullet());
+    }
+
+    public void onBulletMissed(BulletMissedEvent e)
+    {
+        waveManager.onBulletGone(e.getBullet());
     }
 
         public void onHitByBullet(HitByBulletEvent e) {
-        out.println(
-                "ROBÔ ATINGIDO! Bala Power: " + e.getPower() + ", Angulo: " + Math.toDegrees(e.getBearingRadians()));
+        if(Log.INFOS) Log.line(getTime()).append("ROBÔ ATINGIDO! Bala Power: ").append(e.getPower())
+                .append(", Angulo: ").append(Math.toDegrees(e.getBearingRadians())).end();
+
+        // Só as ondas de quem atirou podem ter nos atingido.
+        Enemy shooter = enemies.get(e.getName());
+        if (shooter != null) {
+            shooter.onHitUs(e.getPower());
+        }
+        ArrayList<BulletWave> candidates = shooter != null ? shooter.getWaves() : activeWaves;
 
         // Se não temos ondas ativas para analisar, não há o que aprender.
-        if (activeWaves.isEmpty()) {
+        if (candidates.isEmpty()) {
             return;
         }
 
@@ -173,8 +314,8 @@ public class KillBot extends AdvancedRobot{
 
         // Encontra a onda que mais provavelmente atingiu, baseando-se no tempo
         // de voo da bala.
-        for (int i = activeWaves.size() - 1; i >= 0; i--) {
-            BulletWave wave = activeWaves.get(i);
+        for (int i = candidates.size() - 1; i >= 0; i--) {
+            BulletWave wave = candidates.get(i);
             double bulletDistanceTraveled = (getTime() - wave.getFireTime()) * wave.getBulletSpeed();
             double distanceToWaveOrigin = AuxiliarFunctions.getDistance(wave.getOriginX(), wave.getOriginY(), getX(),
                     getY());
@@ -190,7 +331,8 @@ public class KillBot extends AdvancedRobot{
 
         //  APRENDE COM A ONDA CULPADA 
         if (hittingWave != null) {
-            out.println("  Analisando a onda que nos atingiu. FireTime=" + hittingWave.getFireTime());
+            if(Log.DEBUG) Log.line(getTime()).append("  Analisando a onda que nos atingiu. FireTime=")
+                    .append(hittingWave.getFireTime()).end();
 
             // --- INÍCIO DA LÓGICA DO GUESSFACTOR ---
 
@@ -204,7 +346,7 @@ public class KillBot extends AdvancedRobot{
             // Calcula o GuessFactor. É a razão entre o ângulo de offset e o ângulo máximo
             // de escape.
             // O `hittingWave.getDirection()` corrige a "imagem espelhada" do desvio.
-            double guessFactor = Math.max(-1, Math.min(1, angleOffset / hittingWave.getMaxEscapeAngle()))
+            double guessFactor = Math.max(-1, Math.min(1, angleOffset / hittingWave.getEscapeAngle(angleOffset)))
                     * hittingWave.getDirection();
 
             // Mapeia o GuessFactor (de -1 a 1) para um índice do nosso array (de 0 a 30).
@@ -213,13 +355,14 @@ public class KillBot extends AdvancedRobot{
             // ATUALIZA A ESTATÍSTICA
             WaveSurfer.STATS_BINS[binIndex]++;
 
-            out.println("  APRENDIZADO: Inimigo usou GuessFactor " + String.format("%.2f", guessFactor) +
-                    ", atualizando bin #" + binIndex);
+            if(Log.INFOS) Log.line(getTime()).append("  APRENDIZADO: Inimigo usou GuessFactor ").append(guessFactor, 2)
+                    .append(", atualizando bin #").append(binIndex).end();
 
             // --- FIM DA LÓGICA DO GUESSFACTOR ---
 
             // Remove a onda que nos atingiu da lista de ondas ativas.
             activeWaves.remove(hittingWave);
+            removeFromOwner(hittingWave);
         }
     }
 
@@ -227,7 +370,7 @@ public class KillBot extends AdvancedRobot{
     public void onHitWall(HitWallEvent event) {
         // Quando batemos na parede, o movimento para.
     // A melhor maneira de "descolar" é reverter a direção do movimento.
-        out.println("BATEU NA PAREDE! Revertendo direção.");
+        if(Log.INFOS) Log.line(getTime()).append("BATEU NA PAREDE! Revertendo direção.").end();
         
         // Inverte a direção em MovementControl para que o próximo movimento seja na direção oposta
         // Acessar e modificar lastDirection pode exigir um método setter em MovementControl se quiser manter o encapsulamento.
@@ -247,8 +390,8 @@ public class KillBot extends AdvancedRobot{
         }
 
     public void onHitRobot(HitRobotEvent e) {
-        out.println("ROBÔ COLIDIU COM " + e.getName() + "! Bearing: "
-                + String.format("%.2f", Math.toDegrees(e.getBearing())) + "deg. ATIVANDO FUGA DE CONTATO.");
+        if(Log.INFOS) Log.line(getTime()).append("ROBÔ COLIDIU COM ").append(e.getName()).append("! Bearing: ")
+                .append(Math.toDegrees(e.getBearing()), 2).append("deg. ATIVANDO FUGA DE CONTATO.").end();
         inContactEvasion = true;
         setTurnRadarRight(360);
     }
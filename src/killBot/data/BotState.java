@@ -2,12 +2,24 @@ package killBot.data;
 
 import java.awt.geom.Point2D;
 
+/**
+ * Estado de um robô em um turno.
+ *
+ * É mutável para que os estados do turno e as previsões possam reaproveitar
+ * sempre os mesmos objetos (ver {@link #set} e {@link GameData#predict(BotState, int, double, BotState)}),
+ * sem alocar memória a cada scan.
+ */
 public class BotState {
     public final Point2D.Double location;
-    public final double heading;
-    public final double velocity;
-    public final double energy;
-    public final long time;
+    public double heading;
+    public double velocity;
+    public double energy;
+    public long time;
+
+    public BotState()
+    {
+        this.location = new Point2D.Double();
+    }
 
     public BotState(Point2D.Double location, double heading, double velocity, double energy, long time)
     {
@@ -17,4 +29,28 @@ public class BotState {
         this.energy = energy;
         this.time = time;
     }
+
+    /**
+     * Sobrescreve todos os campos do estado.
+     * @return O próprio estado.
+     */
+    public BotState set(double x, double y, double heading, double velocity, double energy, long time)
+    {
+        location.x = x;
+        location.y = y;
+        this.heading = heading;
+        this.velocity = velocity;
+        this.energy = energy;
+        this.time = time;
+        return this;
+    }
+
+    /**
+     * Copia outro estado para este.
+     * @return O próprio estado.
+     */
+    public BotState copyFrom(BotState other)
+    {
+        return set(other.location.x, other.location.y, other.heading, other.velocity, other.energy, other.time);
+    }
 }
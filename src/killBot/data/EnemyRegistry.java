@@ -0,0 +1,165 @@
+package killBot.data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import killBot.movement.waveSurfing.Enemy;
+import killBot.utils.math.FasterCalcs;
+import robocode.ScannedRobotEvent;
+
+/**
+ * Registro de todos os inimigos vistos no round, para batalhas em grupo (melee).
+ *
+ * Cada inimigo é criado no primeiro scan e mantido até o fim do round, com o
+ * próprio histórico de estados, a própria energia (para detectar tiros) e as
+ * próprias ondas. Trocar de alvo não descarta nada.
+ *
+ * O scan custa uma busca no {@code HashMap} pelo nome (O(1)); o id de cada
+ * inimigo é o índice dele em uma lista, para acesso direto. A escolha do alvo
+ * percorre os inimigos uma vez (O(n)), sem comparar pares.
+ */
+public class EnemyRegistry {
+
+    /** Estados guardados por inimigo (em 10 inimigos, cerca de 0,5 MB). */
+    public static final int DEFAULT_HISTORY_CAPACITY = 1024;
+
+    // Pesos da pontuação de alvo (maior = melhor alvo).
+    /** Distância a partir da qual o peso da proximidade chega a zero. */
+    private static final double MAX_SCORE_DISTANCE = 1200;
+    private static final double DISTANCE_WEIGHT = 1.0;
+    private static final double ENERGY_WEIGHT = 0.5;
+    private static final double HIT_RATE_WEIGHT = 4.0;
+    /** Taxa de acerto assumida antes dos primeiros tiros, e quantos tiros ela vale. */
+    private static final double PRIOR_HIT_RATE = 0.15;
+    private static final int PRIOR_SHOTS = 10;
+    /** Bônus do alvo atual, para não trocar de alvo a cada scan por diferenças pequenas. */
+    private static final double CURRENT_TARGET_BONUS = 0.15;
+    /** Scans mais antigos que isso tiram o inimigo da disputa pelo alvo. */
+    private static final long STALE_TICKS = 40;
+
+    private final HashMap<String, Enemy> byName = new HashMap<>();
+    private final ArrayList<Enemy> enemies = new ArrayList<>();
+    private final int historyCapacity;
+
+    public EnemyRegistry()
+    {
+        this(DEFAULT_HISTORY_CAPACITY);
+    }
+
+    /**
+     * @param historyCapacity Quantos estados o histórico de cada inimigo guarda.
+     */
+    public EnemyRegistry(int historyCapacity)
+    {
+        this.historyCapacity = historyCapacity;
+    }
+
+    /**
+     * Atualiza (ou cria) o inimigo de um scan.
+     * @param e O scan.
+     * @param myX Nossa posição horizontal.
+     * @param myY Nossa posição vertical.
+     * @param myHeading Nossa direção, em radianos.
+     * @return O inimigo escaneado.
+     */
+    public Enemy onScan(ScannedRobotEvent e, double myX, double myY, double myHeading)
+    {
+        Enemy enemy = byName.get(e.getName());
+        if(enemy == null)
+        {
+            enemy = new Enemy(e.getName(), enemies.size(), historyCapacity);
+            byName.put(e.getName(), enemy);
+            enemies.add(enemy);
+        }
+        double absoluteBearing = myHeading + e.getBearingRadians();
+        enemy.updateEnemyData(
+            myX + FasterCalcs.sin(absoluteBearing) * e.getDistance(),
+            myY + FasterCalcs.cos(absoluteBearing) * e.getDistance(),
+            e.getHeadingRadians(), e.getVelocity(), e.getEnergy(), e.getTime());
+        enemy.setLastScan(e);
+        return enemy;
+    }
+
+    /**
+     * @return O inimigo com esse nome, ou null se ele ainda não foi visto.
+     */
+    public Enemy get(String name)
+    {
+        return byName.get(name);
+    }
+
+    /**
+     * @return O inimigo com esse id.
+     */
+    public Enemy get(int id)
+    {
+        return enemies.get(id);
+    }
+
+    /**
+     * @return Quantos inimigos já foram vistos no round.
+     */
+    public int size()
+    {
+        return enemies.size();
+    }
+
+    /**
+     * Marca um inimigo como morto; ele deixa de ser candidato a alvo.
+     */
+    public void onDeath(String name)
+    {
+        Enemy enemy = byName.get(name);
+        if(enemy != null)
+        {
+            enemy.onDeath();
+        }
+    }
+
+    /**
+     * Escolhe o melhor alvo entre os inimigos vivos com scan recente.
+     * A pontuação soma a proximidade, a energia que falta para matá-lo e a nossa
+     * taxa de acerto contra ele; o alvo atual ganha um pequeno bônus.
+     * @param myX Nossa posição horizontal.
+     * @param myY Nossa posição vertical.
+     * @param time O turno atual.
+     * @param current O alvo atual (pode ser null).
+     * @return O melhor alvo, ou null se nenhum inimigo for candidato.
+     */
+    public Enemy selectTarget(double myX, double myY, long time, Enemy current)
+    {
+        Enemy best = null;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for(int i = 0; i < enemies.size(); i++)
+        {
+            Enemy enemy = enemies.get(i);
+            if(!enemy.isAlive() || time - enemy.getcTime() > STALE_TICKS)
+            {
+                continue;
+            }
+            double score = score(enemy, myX, myY);
+            if(enemy == current)
+            {
+                score += CURRENT_TARGET_BONUS;
+            }
+            if(score > bestScore)
+            {
+                bestScore = score;
+                best = enemy;
+            }
+        }
+        return best;
+    }
+
+    private static double score(Enemy enemy, double myX, double myY)
+    {
+        double dx = enemy.getX() - myX;
+        double dy = enemy.getY() - myY;
+        double distance = Math.sqrt(dx * dx + dy * dy);
+        double closeness = Math.max(0, 1 - distance / MAX_SCORE_DISTANCE);
+        double weakness = 1 - Math.min(100, enemy.getLastEnemyEnergy()) / 100;
+        return DISTANCE_WEIGHT * closeness
+                + ENERGY_WEIGHT * weakness
+                + HIT_RATE_WEIGHT * enemy.getHitRate(PRIOR_HIT_RATE, PRIOR_SHOTS);
+    }
+}
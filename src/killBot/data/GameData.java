@@ -1,73 +1,268 @@
 package killBot.data;
 
 import robocode.*;
-import java.util.List;
+import robocode.util.Utils;
 
 import killBot.utils.math.FasterCalcs;
 
-import java.util.ArrayList;
 import java.awt.geom.Point2D;
 
 public class GameData {
     private AdvancedRobot robot;
     public BotState myState;
+    /** Estado do alvo no último scan, ou null se não há alvo. */
     public BotState enemyState;
+    /** Objeto reaproveitado por {@link #enemyState} a cada novo alvo. */
+    private final BotState enemyStateBuffer = new BotState();
     
-    public List<BotState> myHistory;
-    public List<BotState> enemyHistory;
+    /** Históricos de estados, do mais recente (ago = 0) para o mais antigo. */
+    public final StateHistory myHistory;
+    public final StateHistory enemyHistory;
 
-    public static final int HISTORY_SIZE = 100;
+    /** Capacidade padrão dos históricos, em turnos (suficiente para pattern matching). */
+    public static final int DEFAULT_HISTORY_CAPACITY = 4096;
+
+    /** Velocidade lateral do inimigo em relação a nós (positiva = sentido horário). */
+    public double enemyLateralVelocity;
+    /** Turno da última vez que o inimigo inverteu a direção lateral. */
+    public long enemyDirectionChangeTime;
+    /** Última direção lateral não nula do inimigo (1 ou -1). */
+    private int enemyLateralDirection = 1;
+
+    /** Estados e dados laterais guardados enquanto a mira usa os estados previstos. */
+    private BotState savedMyState, savedEnemyState;
+    private double savedLateralVelocity;
+    private int savedLateralDirection;
+    private long savedDirectionChangeTime;
+
+    /** Dimensões do campo de batalha. */
+    public final double battleFieldWidth;
+    public final double battleFieldHeight;
+
+    /** Área de trabalho para seno e cosseno da previsão. */
+    private final double[] sinCos = new double[2];
 
     public GameData(AdvancedRobot robot)
+    {
+        this(robot, DEFAULT_HISTORY_CAPACITY);
+    }
+
+    /**
+     * @param robot O robô.
+     * @param historyCapacity Quantos estados cada histórico guarda.
+     */
+    public GameData(AdvancedRobot robot, int historyCapacity)
     {
         this.robot = robot;
-        myHistory = new ArrayList<>();
-        enemyHistory = new ArrayList<>();
+        this.battleFieldWidth = robot.getBattleFieldWidth();
+        this.battleFieldHeight = robot.getBattleFieldHeight();
+        myHistory = new StateHistory(historyCapacity);
+        enemyHistory = new StateHistory(historyCapacity);
     }
 
+    /**
+     * Atualiza os estados do turno a partir de um scan.
+     * Os objetos de {@link #myState} e {@link #enemyState} são criados no primeiro
+     * scan e depois apenas sobrescritos, então o scan não aloca memória.
+     */
     public void update(ScannedRobotEvent e)
     {
-        Point2D.Double myLocation = new Point2D.Double(robot.getX(), robot.getY());
-        myState = new BotState(
-            myLocation,
+        if(myState == null)
+        {
+            myState = new BotState();
+        }
+        if(enemyState == null)
+        {
+            enemyState = enemyStateBuffer;
+        }
+
+        myState.set(
+            robot.getX(),
+            robot.getY(),
             robot.getHeadingRadians(),
             robot.getVelocity(),
             robot.getEnergy(),
             robot.getTime()
         );
 
-        addHistory(myHistory, myState);
+        myHistory.add(myState);
 
-        double absoluteBearing = robot.getHeadingRadians() + Math.toRadians(e.getBearing());
+        double absoluteBearing = robot.getHeadingRadians() + e.getBearingRadians();
         double distance = e.getDistance();
-        Point2D.Double enemyLocation = project(myLocation, absoluteBearing, distance);
-
-        enemyState = new BotState(
-            enemyLocation,
-            e.getHeadingRadians(),
-            e.getVelocity(),
-            e.getEnergy(),
-            e.getTime()
-        );
+        project(myState.location, absoluteBearing, distance, enemyState.location);
 
-        addHistory(enemyHistory, enemyState);
+        enemyState.heading = e.getHeadingRadians();
+        enemyState.velocity = e.getVelocity();
+        enemyState.energy = e.getEnergy();
+        enemyState.time = e.getTime();
+
+        enemyHistory.add(enemyState);
+
+        updateLateral(absoluteBearing);
     }
 
-    private void addHistory(List<BotState> history, BotState state)
+    /**
+     * Recalcula a velocidade lateral do inimigo e registra a inversão de direção,
+     * a partir de {@link #myState} e {@link #enemyState}.
+     * @param absoluteBearing O ângulo absoluto de nós até o inimigo.
+     */
+    private void updateLateral(double absoluteBearing)
     {
-        history.add(0, state);
-        if(history.size() > HISTORY_SIZE)
+        enemyLateralVelocity = enemyState.velocity * FasterCalcs.sin(enemyState.heading - absoluteBearing);
+        int lateralDirection = (int) Math.signum(enemyLateralVelocity);
+        if(lateralDirection != 0 && lateralDirection != enemyLateralDirection)
         {
-            history.remove(history.size() - 1);
+            enemyLateralDirection = lateralDirection;
+            enemyDirectionChangeTime = enemyState.time;
         }
     }
 
+    /**
+     * Troca os estados atuais pelos previstos para um turno futuro, recalculando a
+     * velocidade e a direção lateral do inimigo para eles. Deve ser desfeito com
+     * {@link #restoreStates()} assim que a mira terminar.
+     * @param predictedMyState Nosso estado previsto.
+     * @param predictedEnemyState O estado previsto do inimigo.
+     */
+    public void usePredictedStates(BotState predictedMyState, BotState predictedEnemyState)
+    {
+        savedMyState = myState;
+        savedEnemyState = enemyState;
+        savedLateralVelocity = enemyLateralVelocity;
+        savedLateralDirection = enemyLateralDirection;
+        savedDirectionChangeTime = enemyDirectionChangeTime;
+
+        myState = predictedMyState;
+        enemyState = predictedEnemyState;
+        updateLateral(FasterCalcs.atan2(enemyState.location.x - myState.location.x,
+            enemyState.location.y - myState.location.y));
+    }
+
+    /**
+     * Volta aos estados (e dados laterais) anteriores a {@link #usePredictedStates}.
+     */
+    public void restoreStates()
+    {
+        myState = savedMyState;
+        enemyState = savedEnemyState;
+        enemyLateralVelocity = savedLateralVelocity;
+        enemyLateralDirection = savedLateralDirection;
+        enemyDirectionChangeTime = savedDirectionChangeTime;
+        savedMyState = null;
+        savedEnemyState = null;
+    }
+
+    /**
+     * Esquece o inimigo atual quando o alvo muda ou morre (melee): até o próximo
+     * scan do alvo não há estado do inimigo ({@link #enemyState} fica null), e esse
+     * scan passa a ser o primeiro do histórico do novo alvo.
+     */
+    public void clearEnemy()
+    {
+        enemyState = null;
+        enemyHistory.clear();
+        enemyLateralVelocity = 0;
+        enemyLateralDirection = 1;
+        enemyDirectionChangeTime = robot.getTime();
+    }
+
+    /**
+     * Estado do inimigo em um turno qualquer, interpolado ou extrapolado a partir
+     * do histórico quando não houve scan naquele turno.
+     * @param time O turno desejado.
+     * @param out Recebe o estado.
+     * @return A confiança do estado (1 = scan daquele turno, 0 = sem dados).
+     */
+    public double enemyStateAt(long time, BotState out)
+    {
+        return enemyHistory.stateAt(time, out, battleFieldWidth, battleFieldHeight);
+    }
+
+    /**
+     * Nosso estado em um turno qualquer, a partir do histórico.
+     * @param time O turno desejado.
+     * @param out Recebe o estado.
+     * @return A confiança do estado.
+     */
+    public double myStateAt(long time, BotState out)
+    {
+        return myHistory.stateAt(time, out, battleFieldWidth, battleFieldHeight);
+    }
+
+    /**
+     * Retorna há quantos turnos o inimigo não inverte a direção lateral.
+     * @return O número de turnos desde a última inversão.
+     */
+    public long getEnemyTimeSinceDirectionChange()
+    {
+        return enemyState == null ? 0 : enemyState.time - enemyDirectionChangeTime;
+    }
+
+    /**
+     * Calcula a taxa de giro do inimigo a partir dos dois últimos estados do histórico.
+     * @return A variação da direção do inimigo por turno, em radianos.
+     */
+    public double getEnemyTurnRate()
+    {
+        if(enemyHistory.size() < 2)
+        {
+            return 0;
+        }
+        long dt = Math.max(1, enemyState.time - enemyHistory.getTime(1));
+        return Utils.normalRelativeAngle(enemyState.heading - enemyHistory.getHeading(1)) / dt;
+    }
+
+    /**
+     * Prevê um estado alguns turnos à frente, mantendo velocidade e taxa de giro
+     * e limitando a posição ao campo de batalha.
+     * @param state O estado de partida.
+     * @param ticks Quantos turnos avançar.
+     * @param turnRate A variação da direção por turno, em radianos.
+     * @return O estado previsto (um objeto novo).
+     */
+    public BotState predict(BotState state, int ticks, double turnRate)
+    {
+        return predict(state, ticks, turnRate, new BotState());
+    }
+
+    /**
+     * Igual a {@link #predict(BotState, int, double)}, mas escreve o resultado em
+     * um estado já existente, sem alocar memória. out pode ser o próprio state.
+     * @param out O estado que recebe a previsão.
+     * @return out.
+     */
+    public BotState predict(BotState state, int ticks, double turnRate, BotState out)
+    {
+        double x = state.location.x;
+        double y = state.location.y;
+        double heading = state.heading;
+        for(int i = 0; i < ticks; i++)
+        {
+            heading += turnRate;
+            FasterCalcs.sincos(heading, sinCos);
+            x = Math.max(18, Math.min(battleFieldWidth - 18, x + state.velocity * sinCos[0]));
+            y = Math.max(18, Math.min(battleFieldHeight - 18, y + state.velocity * sinCos[1]));
+        }
+        return out.set(x, y, heading, state.velocity, state.energy, state.time + ticks);
+    }
+
     public static Point2D.Double project(Point2D.Double sourceLocation, double angle, double length)
     {
-        return new Point2D.Double(
-            sourceLocation.x + FasterCalcs.sin(angle) * length,
-            sourceLocation.y + FasterCalcs.cos(angle) * length
-        );
+        return project(sourceLocation, angle, length, new Point2D.Double());
+    }
+
+    /**
+     * Projeta um ponto sem alocar memória. out pode ser o próprio sourceLocation.
+     * @param out O ponto que recebe o resultado.
+     * @return out.
+     */
+    public static Point2D.Double project(Point2D.Double sourceLocation, double angle, double length, Point2D.Double out)
+    {
+        double x = sourceLocation.x + FasterCalcs.sin(angle) * length;
+        double y = sourceLocation.y + FasterCalcs.cos(angle) * length;
+        out.x = x;
+        out.y = y;
+        return out;
     }
 
 }
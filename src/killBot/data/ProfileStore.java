@@ -0,0 +1,371 @@
+package killBot.data;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import killBot.gun.Aimer;
+import killBot.gun.BulletPowerSelector;
+import killBot.gun.DynamicClusteringGun;
+import killBot.gun.HitRateTracker;
+import killBot.gun.StatBuffer;
+import killBot.gun.VirtualGunArray;
+import killBot.movement.waveSurfing.WaveSurfer;
+import killBot.utils.Log;
+import robocode.AdvancedRobot;
+import robocode.RobocodeFileOutputStream;
+
+/**
+ * Guarda, entre batalhas, o que o robô aprendeu sobre cada oponente.
+ * Cada oponente tem um arquivo próprio no diretório de dados do robô
+ * ({@code getDataFile()}), com as estatísticas da mira ({@link Aimer#BINS}, as
+ * duas camadas), do surf ({@link WaveSurfer#STATS_BINS}), as pontuações das
+ * miras virtuais ({@link VirtualGunArray}) e as taxas de acerto por faixa
+ * ({@link HitRateTracker}). Batalhas com mais de um oponente usam um único
+ * perfil para o melee inteiro.
+ *
+ * Formato (binário, quantizado): cada segmento é gravado como um float com o
+ * maior valor do segmento seguido de um byte por bin (0-255, relativo a esse
+ * máximo). Segmentos vazios ocupam só os 4 bytes do float. As pontuações e as
+ * taxas vêm depois, como floats.
+ *
+ * Todo o aprendizado estático que depende do oponente é zerado antes de o
+ * perfil ser lido, inclusive o que não vai para o disco: a árvore da
+ * {@link DynamicClusteringGun} (grande demais para a cota de dados) e as
+ * estatísticas do {@link BulletPowerSelector}.
+ *
+ * Para respeitar a cota de dados do Robocode, os perfis menos usados
+ * recentemente (arquivo modificado há mais tempo) são apagados primeiro.
+ */
+public class ProfileStore {
+
+    /** Extensão dos arquivos de perfil. */
+    private static final String EXTENSION = ".prf";
+    /** Nome do perfil usado em batalhas com mais de um oponente. */
+    private static final String MELEE_PROFILE = "melee";
+    /** Versão do formato; arquivos de outra versão são ignorados. */
+    private static final byte VERSION = 2;
+    /** Maior valor de um bin quantizado. */
+    private static final int QUANT_MAX = 255;
+
+    /**
+     * Nome do perfil carregado nos arrays estáticos, ou null antes do primeiro scan
+     * da batalha. É estático porque as estatísticas também são, e sobrevivem entre
+     * rounds (mas não entre batalhas, que recarregam as classes do robô).
+     */
+    private static String loadedName = null;
+
+    /** Referência ao robô principal para acessar o diretório de dados. */
+    private AdvancedRobot robot;
+
+    /**
+     * Construtor da classe ProfileStore.
+     * @param robot A instância do robô principal.
+     */
+    public ProfileStore(AdvancedRobot robot)
+    {
+        this.robot = robot;
+    }
+
+    /**
+     * Deve ser chamado a cada scan. O perfil é carregado uma única vez por
+     * batalha, no primeiro scan: o do oponente em um duelo, ou um perfil comum a
+     * todo melee se houver mais de um oponente. Os scans seguintes não fazem nada,
+     * então trocar de alvo no melee nunca lê nem grava o disco nem limpa os arrays.
+     * @param enemyName O nome do oponente escaneado ({@code ScannedRobotEvent.getName()}).
+     * @param opponents Quantos oponentes estão vivos ({@code getOthers()}).
+     */
+    public void onScan(String enemyName, int opponents)
+    {
+        if(loadedName != null)
+        {
+            return;
+        }
+        String name = opponents > 1 ? MELEE_PROFILE : baseName(enemyName);
+
+        // Começa do zero antes de ler: nada do aprendizado de outro oponente sobra.
+        clearStats();
+        loadedName = name;
+        load(name);
+    }
+
+    /**
+     * Zera todo o aprendizado estático que depende do oponente.
+     */
+    private static void clearStats()
+    {
+        Aimer.BINS.clear();
+        Arrays.fill(WaveSurfer.STATS_BINS, 0);
+        VirtualGunArray.clearScores();
+        HitRateTracker.clearBands();
+        DynamicClusteringGun.clearStats();
+        BulletPowerSelector.clearStats();
+    }
+
+    /**
+     * Grava o perfil do oponente atual, apagando perfis antigos se a cota exigir.
+     */
+    public void save()
+    {
+        if(loadedName == null)
+        {
+            return;
+        }
+
+        byte[] encoded;
+        try
+        {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            encode(new DataOutputStream(buffer));
+            encoded = buffer.toByteArray();
+        }
+        catch(IOException e)
+        {
+            return;
+        }
+
+        File file = robot.getDataFile(fileName(loadedName));
+        if(!makeRoom(encoded.length, file))
+        {
+            return;
+        }
+
+        OutputStream out = null;
+        try
+        {
+            out = new RobocodeFileOutputStream(file);
+            out.write(encoded);
+        }
+        catch(IOException e)
+        {
+            if(Log.WARNINGS) Log.line(robot.getTime()).append("ProfileStore: falha ao gravar perfil de ").append(loadedName).end();
+        }
+        finally
+        {
+            close(out);
+        }
+    }
+
+    /**
+     * Lê o perfil de um oponente, se existir, para os arrays estáticos.
+     * @param name O nome base do oponente.
+     */
+    private void load(String name)
+    {
+        File file = robot.getDataFile(fileName(name));
+        if(!file.exists() || file.length() == 0)
+        {
+            return;
+        }
+
+        InputStream in = null;
+        try
+        {
+            in = new FileInputStream(file);
+            decode(new DataInputStream(in));
+        }
+        catch(IOException e)
+        {
+            // Perfil corrompido: começa do zero.
+            clearStats();
+        }
+        finally
+        {
+            close(in);
+        }
+    }
+
+    /**
+     * Escreve as estatísticas atuais no formato quantizado.
+     * @param out O destino.
+     * @throws IOException Se a escrita falhar.
+     */
+    private void encode(DataOutputStream out) throws IOException
+    {
+        StatBuffer gun = Aimer.BINS;
+        int bins = gun.getBins();
+
+        out.writeByte(VERSION);
+        out.writeShort(gun.getSegments());
+        out.writeByte(bins);
+        for(int segment = 0; segment < gun.getSegments(); segment++)
+        {
+            int offset = gun.offset(segment);
+            double max = 0;
+            for(int i = 0; i < bins; i++)
+            {
+                max = Math.max(max, gun.get(offset, i));
+            }
+            out.writeFloat((float) max);
+            if(max > 0)
+            {
+                for(int i = 0; i < bins; i++)
+                {
+                    out.writeByte(quantize(gun.get(offset, i), max));
+                }
+            }
+        }
+
+        int[] surf = WaveSurfer.STATS_BINS;
+        int surfMax = 0;
+        for(int value : surf)
+        {
+            surfMax = Math.max(surfMax, value);
+        }
+        out.writeByte(surf.length);
+        out.writeFloat(surfMax);
+        if(surfMax > 0)
+        {
+            for(int value : surf)
+            {
+                out.writeByte(quantize(value, surfMax));
+            }
+        }
+
+        VirtualGunArray.saveScores(out);
+        HitRateTracker.saveBands(out);
+        out.flush();
+    }
+
+    /**
+     * Lê um perfil quantizado para os arrays estáticos. Se as dimensões gravadas
+     * não baterem com as atuais (mudança de segmentação), o perfil é descartado.
+     * @param in A origem.
+     * @throws IOException Se a leitura falhar.
+     */
+    private void decode(DataInputStream in) throws IOException
+    {
+        StatBuffer gun = Aimer.BINS;
+        int bins = gun.getBins();
+
+        if(in.readByte() != VERSION || in.readShort() != gun.getSegments() || in.readUnsignedByte() != bins)
+        {
+            return;
+        }
+        for(int segment = 0; segment < gun.getSegments(); segment++)
+        {
+            int offset = gun.offset(segment);
+            double max = in.readFloat();
+            if(max > 0)
+            {
+                for(int i = 0; i < bins; i++)
+                {
+                    gun.setValue(offset + i, in.readUnsignedByte() * max / QUANT_MAX);
+                }
+            }
+        }
+
+        int[] surf = WaveSurfer.STATS_BINS;
+        if(in.readUnsignedByte() != surf.length)
+        {
+            return;
+        }
+        double surfMax = in.readFloat();
+        if(surfMax > 0)
+        {
+            for(int i = 0; i < surf.length; i++)
+            {
+                surf[i] = (int) Math.round(in.readUnsignedByte() * surfMax / QUANT_MAX);
+            }
+        }
+
+        VirtualGunArray.loadScores(in);
+        HitRateTracker.loadBands(in);
+    }
+
+    /**
+     * Garante espaço na cota de dados apagando os perfis usados há mais tempo.
+     * @param needed O tamanho do arquivo a ser gravado.
+     * @param target O arquivo que será sobrescrito (seu tamanho atual é liberado).
+     * @return true se houver espaço suficiente.
+     */
+    private boolean makeRoom(int needed, File target)
+    {
+        long available = robot.getDataQuotaAvailable() + (target.exists() ? target.length() : 0);
+        while(available < needed)
+        {
+            File oldest = null;
+            File[] files = robot.getDataDirectory().listFiles();
+            if(files != null)
+            {
+                for(File file : files)
+                {
+                    if(!file.getName().endsWith(EXTENSION) || file.equals(target))
+                    {
+                        continue;
+                    }
+                    if(oldest == null || file.lastModified() < oldest.lastModified())
+                    {
+                        oldest = file;
+                    }
+                }
+            }
+            if(oldest == null)
+            {
+                return false;
+            }
+            long freed = oldest.length();
+            if(!oldest.delete())
+            {
+                return false;
+            }
+            available += freed;
+        }
+        return true;
+    }
+
+    /**
+     * Converte um valor para a escala de 0 a 255 relativa ao máximo do segmento.
+     */
+    private static int quantize(double value, double max)
+    {
+        return (int) Math.round(Math.max(0, value) / max * QUANT_MAX);
+    }
+
+    /**
+     * Remove o sufixo " (n)" que o Robocode adiciona quando há cópias do mesmo
+     * robô, para que todas compartilhem o mesmo perfil.
+     */
+    private static String baseName(String name)
+    {
+        int index = name.indexOf(" (");
+        return index > 0 ? name.substring(0, index) : name;
+    }
+
+    /**
+     * Gera um nome de arquivo seguro a partir do nome do oponente.
+     */
+    private static String fileName(String name)
+    {
+        StringBuilder sb = new StringBuilder(name.length() + EXTENSION.length());
+        for(int i = 0; i < name.length(); i++)
+        {
+            char c = name.charAt(i);
+            sb.append(Character.isLetterOrDigit(c) || c == '.' || c == '_' || c == '-' ? c : '_');
+        }
+        return sb.append(EXTENSION).toString();
+    }
+
+    private static void close(Closeable stream)
+    {
+        if(stream == null)
+        {
+            return;
+        }
+        try
+        {
+            stream.close();
+        }
+        catch(IOException e)
+        {
+            // nada a fazer
+        }
+    }
+}
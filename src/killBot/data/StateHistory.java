@@ -0,0 +1,258 @@
+package killBot.data;
+
+import killBot.utils.math.FasterCalcs;
+import robocode.Rules;
+import robocode.util.Utils;
+
+/**
+ * Histórico de estados de um robô em um buffer circular primitivo.
+ *
+ * Cada atributo fica em um array próprio (estrutura de arrays), sem um objeto
+ * por estado. Inserir é O(1) e sobrescreve o estado mais antigo quando a
+ * capacidade é atingida; o acesso "n registros atrás" também é O(1). Como os
+ * estados chegam em ordem de tempo, a busca por turno é uma busca binária.
+ *
+ * Os índices {@code ago} contam a partir do registro mais recente: 0 é o último
+ * estado guardado, 1 o anterior, e assim por diante até {@code size() - 1}.
+ *
+ * {@link #stateAt} responde pelo estado em qualquer turno: interpola entre dois
+ * registros quando o radar perdeu turnos no meio e extrapola depois do último
+ * registro seguindo a física do Robocode, junto com uma confiança que cai com a
+ * distância (em turnos) até o registro real mais próximo.
+ */
+public class StateHistory {
+
+    /** Meia largura do robô: o centro nunca chega mais perto da parede que isso. */
+    private static final double HALF_BOT = 18;
+    /** Turnos interpolados a partir dos quais a confiança cai pela metade. */
+    private static final double INTERPOLATION_HALF_LIFE = 4;
+    /** Turnos extrapolados a partir dos quais a confiança cai pela metade. */
+    private static final double EXTRAPOLATION_HALF_LIFE = 2;
+
+    private final int capacity;
+
+    private final double[] x;
+    private final double[] y;
+    private final double[] heading;
+    private final double[] velocity;
+    private final double[] energy;
+    private final long[] time;
+
+    /** Posição do registro mais recente. */
+    private int newest = -1;
+    private int size = 0;
+
+    /**
+     * @param capacity Número máximo de estados guardados.
+     */
+    public StateHistory(int capacity)
+    {
+        this.capacity = Math.max(2, capacity);
+        x = new double[this.capacity];
+        y = new double[this.capacity];
+        heading = new double[this.capacity];
+        velocity = new double[this.capacity];
+        energy = new double[this.capacity];
+        time = new long[this.capacity];
+    }
+
+    /**
+     * Guarda um novo estado. Se o turno for o mesmo do último estado, ele é
+     * substituído, para que o histórico tenha no máximo um estado por turno.
+     */
+    public void add(double x, double y, double heading, double velocity, double energy, long time)
+    {
+        if(size == 0 || time != this.time[newest])
+        {
+            newest = newest + 1 == capacity ? 0 : newest + 1;
+            if(size < capacity) size++;
+        }
+        this.x[newest] = x;
+        this.y[newest] = y;
+        this.heading[newest] = heading;
+        this.velocity[newest] = velocity;
+        this.energy[newest] = energy;
+        this.time[newest] = time;
+    }
+
+    public void add(BotState state)
+    {
+        add(state.location.x, state.location.y, state.heading, state.velocity, state.energy, state.time);
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public int capacity()
+    {
+        return capacity;
+    }
+
+    public void clear()
+    {
+        newest = -1;
+        size = 0;
+    }
+
+    /** Posição no buffer do registro {@code ago} registros atrás. */
+    private int slot(int ago)
+    {
+        if(ago < 0 || ago >= size)
+        {
+            throw new IndexOutOfBoundsException("ago: " + ago + ", size: " + size);
+        }
+        int slot = newest - ago;
+        return slot < 0 ? slot + capacity : slot;
+    }
+
+    public double getX(int ago)
+    {
+        return x[slot(ago)];
+    }
+
+    public double getY(int ago)
+    {
+        return y[slot(ago)];
+    }
+
+    public double getHeading(int ago)
+    {
+        return heading[slot(ago)];
+    }
+
+    public double getVelocity(int ago)
+    {
+        return velocity[slot(ago)];
+    }
+
+    public double getEnergy(int ago)
+    {
+        return energy[slot(ago)];
+    }
+
+    public long getTime(int ago)
+    {
+        return time[slot(ago)];
+    }
+
+    /**
+     * Estado em um turno qualquer.
+     * - Turno registrado: o próprio registro, com confiança 1.
+     * - Entre dois registros: interpolação linear da posição, velocidade e energia
+     *   e da direção pelo menor ângulo.
+     * - Depois do último registro: simulação turno a turno mantendo a velocidade e a
+     *   taxa de giro dos dois últimos registros, com o giro limitado pela
+     *   velocidade e parada na parede.
+     * - Antes do primeiro registro: o primeiro registro.
+     * @param t O turno desejado.
+     * @param out Recebe o estado.
+     * @param fieldWidth Largura do campo.
+     * @param fieldHeight Altura do campo.
+     * @return A confiança (0 a 1), ou 0 se o histórico estiver vazio.
+     */
+    public double stateAt(long t, BotState out, double fieldWidth, double fieldHeight)
+    {
+        if(size == 0)
+        {
+            return 0;
+        }
+        int ago = agoAtOrBefore(t);
+        if(ago < 0)
+        {
+            int oldest = slot(size - 1);
+            copy(oldest, out);
+            out.time = t;
+            return confidence(time[oldest] - t, EXTRAPOLATION_HALF_LIFE);
+        }
+
+        int before = slot(ago);
+        if(time[before] == t)
+        {
+            copy(before, out);
+            return 1;
+        }
+
+        if(ago > 0)
+        {
+            int after = slot(ago - 1);
+            double fraction = (double) (t - time[before]) / (time[after] - time[before]);
+            out.set(
+                x[before] + (x[after] - x[before]) * fraction,
+                y[before] + (y[after] - y[before]) * fraction,
+                heading[before] + Utils.normalRelativeAngle(heading[after] - heading[before]) * fraction,
+                velocity[before] + (velocity[after] - velocity[before]) * fraction,
+                energy[before] + (energy[after] - energy[before]) * fraction,
+                t);
+            return confidence(Math.min(t - time[before], time[after] - t), INTERPOLATION_HALF_LIFE);
+        }
+
+        // Depois do último registro: extrapola.
+        double turnRate = 0;
+        if(size > 1)
+        {
+            int previous = slot(1);
+            turnRate = Utils.normalRelativeAngle(heading[before] - heading[previous])
+                    / Math.max(1, time[before] - time[previous]);
+        }
+        double px = x[before];
+        double py = y[before];
+        double h = heading[before];
+        double v = velocity[before];
+        for(long tick = time[before]; tick < t; tick++)
+        {
+            double maxTurn = Rules.getTurnRateRadians(Math.abs(v));
+            h += Math.max(-maxTurn, Math.min(maxTurn, turnRate));
+            px += v * FasterCalcs.sin(h);
+            py += v * FasterCalcs.cos(h);
+            if(px < HALF_BOT || px > fieldWidth - HALF_BOT || py < HALF_BOT || py > fieldHeight - HALF_BOT)
+            {
+                px = Math.max(HALF_BOT, Math.min(fieldWidth - HALF_BOT, px));
+                py = Math.max(HALF_BOT, Math.min(fieldHeight - HALF_BOT, py));
+                v = 0; // bateu na parede e parou
+            }
+        }
+        out.set(px, py, h, v, energy[before], t);
+        return confidence(t - time[before], EXTRAPOLATION_HALF_LIFE);
+    }
+
+    private void copy(int slot, BotState out)
+    {
+        out.set(x[slot], y[slot], heading[slot], velocity[slot], energy[slot], time[slot]);
+    }
+
+    private static double confidence(long gap, double halfLife)
+    {
+        return 1.0 / (1.0 + gap / halfLife);
+    }
+
+    /**
+     * Procura, por busca binária, o registro mais recente com turno menor ou igual ao dado.
+     * @param t O turno procurado.
+     * @return O índice {@code ago} do registro, ou -1 se todos forem posteriores a t.
+     */
+    public int agoAtOrBefore(long t)
+    {
+        if(size == 0 || time[slot(size - 1)] > t)
+        {
+            return -1;
+        }
+        // Os turnos crescem quando ago diminui: procura o menor ago com time <= t.
+        int low = 0;
+        int high = size - 1;
+        while(low < high)
+        {
+            int mid = (low + high) >>> 1;
+            if(time[slot(mid)] <= t)
+            {
+                high = mid;
+            }
+            else
+            {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+}
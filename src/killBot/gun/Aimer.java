@@ -2,18 +2,20 @@ package killBot.gun;
 
 import killBot.data.BotState;
 import killBot.data.GameData;
+import killBot.utils.Log;
+import killBot.utils.math.FasterCalcs;
 import robocode.AdvancedRobot;
+import robocode.Bullet;
 import robocode.util.Utils;
-import java.awt.geom.Point2D;
-import killBot.data.Wave;
-import killBot.utils.math.FasterCalcs;
 
 /**
  * Gerencia toda a lógica de mira (targeting) do robô.
- * Esta classe utiliza uma mira híbrida:
- * 1. Mira Preditiva Linear: Para alvos que se movem de forma previsível em linha reta.
- * 2. Mira Estatística (GuessFactor): Para todos os outros cenários, adaptando-se
- * ao padrão de desvio do inimigo.
+ * Esta classe coordena um conjunto de miras virtuais ({@link VirtualGunArray}):
+ * 1. Mira Estatística (GuessFactor): segmentada pelo buffer BINS.
+ * 2. Mira Preditiva Linear e Circular: para alvos de movimento previsível.
+ * 3. Mira de Clusterização Dinâmica: vizinhos mais próximos em uma árvore KD.
+ * 4. Mira Direta (head-on).
+ * Todas são avaliadas em todas as ondas, e a de melhor desempenho recente atira.
  */
 public class Aimer {
     /** Referência ao robô principal para executar ações. */
@@ -24,6 +26,17 @@ public class Aimer {
     private GameData gameData;
     /** Rastreador de taxa de acertos para a seleção de poder do tiro. */
     private HitRateTracker hitTracker;
+    /** Conjunto de miras virtuais que competem pelo tiro real. */
+    private VirtualGunArray gunArray;
+    /** Ângulos sugeridos pelas miras no turno atual, reaproveitado a cada turno. */
+    private final double[] gunAngles = new double[VirtualGunArray.MAX_GUNS];
+    /** Potência escolhida na última mira completa, usada nas ondas dos turnos de canhão quente. */
+    private double lastFirePower = 0;
+    /** Desvio, em relação ao ângulo direto, do último ângulo escolhido pela mira completa. */
+    private double lastAimOffset = 0;
+    /** Estados previstos para o momento do tiro, reaproveitados a cada mira. */
+    private final BotState predictedMyState = new BotState();
+    private final BotState predictedEnemyState = new BotState();
 
     // Constantes para as dimensões do array de estatísticas (BINS)
     public static final int DISTANCE_BINS = 7;
@@ -34,17 +47,41 @@ public class Aimer {
     /** O índice do meio do array GF_BINS, correspondendo a um GuessFactor de 0. */
     public static final int zeroIndex = 23;
 
-    /** * O array quadridimensional que armazena as estatísticas de acerto.
-     * Estrutura: [distância][velocidade][aceleração][guessFactor]
+    /** Fator de decaimento aplicado às estatísticas a cada turno. */
+    public static final double BINS_DECAY = 0.999;
+    /**
+     * Decaimento, por turno, da camada anti-surfista. Surfistas fogem dos nossos
+     * GuessFactors favoritos, então essa camada só lembra dos últimos tiros.
+     */
+    public static final double ANTI_SURFER_DECAY = 0.99;
+    /** Camada principal do BINS: aprende com todas as ondas. */
+    public static final int MAIN_LAYER = 0;
+    /** Camada anti-surfista do BINS: aprende só com as ondas de tiros reais. */
+    public static final int ANTI_SURFER_LAYER = 1;
+    /** Largura (desvio padrão, em bins) do kernel que espalha cada amostra pelos bins vizinhos. */
+    public static final double KERNEL_BANDWIDTH = 1.5;
+    /** Quantos turnos antes de o canhão esfriar a mira completa passa a rodar. */
+    public static final int FULL_AIM_TICKS = 2;
+    /** Confiança mínima no estado do inimigo para atirar (~6 turnos sem scan). */
+    public static final double MIN_FIRE_CONFIDENCE = 0.25;
+    /** Meia largura do robô inimigo, usada para calcular a janela de acerto. */
+    private static final double BOT_HALF_WIDTH = 18.0;
+
+    /** * O buffer achatado que armazena as estatísticas de acerto.
+     * Segmento: (distância * VELOCITY_BINS + velocidade) * ACCEL_BINS + aceleração,
+     * cada um com GF_BINS posições. Tem duas camadas com a mesma segmentação:
+     * a principal ({@link #MAIN_LAYER}) e a anti-surfista ({@link #ANTI_SURFER_LAYER}).
      */
-    public static double[][][][] BINS;
+    public static StatBuffer BINS;
 
     /**
-     * Bloco inicializador estático para alocar memória para o array de estatísticas.
+     * Bloco inicializador estático para alocar memória para o buffer de estatísticas.
      */
     static
     {
-        BINS = new double[DISTANCE_BINS][VELOCITY_BINS][ACCEL_BINS][GF_BINS];
+        BINS = new StatBuffer(DISTANCE_BINS * VELOCITY_BINS * ACCEL_BINS, GF_BINS,
+            new double[] { BINS_DECAY, ANTI_SURFER_DECAY });
+        BINS.setKernelBandwidth(KERNEL_BANDWIDTH);
     }
 
     /**
@@ -53,13 +90,26 @@ public class Aimer {
      * @param waveManager O gerenciador de ondas de tiro.
      * @param gameData O objeto de dados do jogo.
      * @param hitTracker O rastreador de taxa de acertos.
+     * @param dcGun A mira de clusterização dinâmica.
+     * @param gunArray O conjunto de miras virtuais, onde as miras são registradas.
      */
-    public Aimer(AdvancedRobot robot, WaveManager waveManager, GameData gameData, HitRateTracker hitTracker) 
+    public Aimer(AdvancedRobot robot, WaveManager waveManager, GameData gameData, HitRateTracker hitTracker,
+            DynamicClusteringGun dcGun, VirtualGunArray gunArray) 
         {
             this.robot = robot;
             this.waveManager = waveManager;
             this.gameData = gameData;
             this.hitTracker = hitTracker;
+            this.gunArray = gunArray;
+
+            // A ordem de registro define o índice (e a pontuação) de cada mira.
+            gunArray.addGun(new GuessFactorGun(gameData, this, MAIN_LAYER, "GuessFactor"));
+            gunArray.addGun(new LinearGun(robot, gameData));
+            gunArray.addGun(new CircularGun(robot, gameData));
+            gunArray.addGun(dcGun);
+            gunArray.addGun(new HeadOnGun(gameData));
+            // Contra surfistas, esta mira passa a ganhar a disputa das pontuações sozinha.
+            gunArray.addGun(new GuessFactorGun(gameData, this, ANTI_SURFER_LAYER, "AntiSurfer"));
         }
     
     /**
@@ -98,10 +148,9 @@ public class Aimer {
     private int getAccelerationIndex() {
         if (gameData.enemyHistory.size() > 1) {
             BotState currentState = gameData.enemyState;
-            BotState previousState = gameData.enemyHistory.get(1); // O estado de 1 tick atrás
 
             double currentVelocity = Math.abs(currentState.velocity);
-            double previousVelocity = Math.abs(previousState.velocity);
+            double previousVelocity = Math.abs(gameData.enemyHistory.getVelocity(1)); // O estado de 1 tick atrás
             
             // Compara a mudança na velocidade com uma pequena tolerância.
             if (currentVelocity > previousVelocity + 0.1) {
@@ -115,191 +164,191 @@ public class Aimer {
         return 1; // Padrão se não houver histórico suficiente.
     }
 
+    /**
+     * Calcula o deslocamento do segmento atual dentro do buffer BINS.
+     * @return O índice do primeiro bin do segmento atual.
+     */
+    public int getSegmentOffset() {
+        int segment = (getDistanceIndex() * VELOCITY_BINS + getVelocityIndex()) * ACCEL_BINS + getAccelerationIndex();
+        return BINS.offset(segment);
+    }
+
     /**
      * O método principal de mira, chamado a cada turno.
-     * Decide entre a mira preditiva linear e a mira estatística (GuessFactor).
+     *
+     * A mira completa (potência, todas as miras virtuais) só roda nos últimos
+     * {@link #FULL_AIM_TICKS} turnos antes de o canhão esfriar e enquanto ele
+     * estiver pronto. Nesses turnos, as miras avaliam o estado previsto para o
+     * turno do disparo, para o canhão já estar virado quando a bala sair. Com o
+     * canhão quente, só acompanhamos o inimigo mantendo o último desvio escolhido.
+     *
+     * Em todo turno, atirando ou não, emite uma onda com o contexto atual para
+     * que as estatísticas aprendam com cada onda. Os ângulos das miras só vão
+     * junto nas ondas dos turnos em que o canhão pode atirar.
+     *
+     * @return A bala disparada neste turno, ou null.
      */
-    public void shoot()
+    public Bullet shoot()
     {
-        if(gameData.enemyState == null) return;
+        if(gameData.enemyState == null) return null;
+
+        double distance = gameData.myState.location.distance(gameData.enemyState.location);
+        double absoluteBearing = FasterCalcs.atan2(
+            gameData.enemyState.location.x - gameData.myState.location.x,
+            gameData.enemyState.location.y - gameData.myState.location.y);
+        int ticksUntilCool = (int) Math.ceil(robot.getGunHeat() / robot.getGunCoolingRate() - 1e-9);
+
+        if(ticksUntilCool > FULL_AIM_TICKS && lastFirePower > 0)
+        {
+            // Canhão quente: acompanhamento barato, sem rodar as miras.
+            robot.setTurnGunRightRadians(
+                Utils.normalRelativeAngle(absoluteBearing + lastAimOffset - robot.getGunHeadingRadians()));
+            waveManager.addWave(lastFirePower, getSegmentOffset(), null, -1, gunAngles, -1);
+            return null;
+        }
 
         double firePower = BulletPowerSelector.getBestPower(
             gameData.myState.energy,
             gameData.enemyState.energy,
-            gameData.myState.location.distance(gameData.enemyState.location),
+            distance,
             hitTracker);
+        lastFirePower = firePower;
 
-        // Heurística para ativar a mira linear: inimigo rápido e com aceleração constante.
-        boolean isMovingLinearly = Math.abs(gameData.enemyState.velocity) > 4 && getAccelerationIndex() == 1;
-        if (isMovingLinearly) {
-            // --- INÍCIO DA MIRA PREDITIVA LINEAR ---
-            double bulletSpeed = 20 - (3 * firePower);
-
-            Point2D.Double myPos = gameData.myState.location;
-            Point2D.Double enemyPos = gameData.enemyState.location;
-            double enemyHeading = gameData.enemyState.heading;
-            double enemyVelocity = gameData.enemyState.velocity;
-            double distance = myPos.distance(enemyPos);
-            
-            double futureTime = 0;
-            Point2D.Double predictedPos = (Point2D.Double) enemyPos.clone();
-
-            // Itera no tempo para encontrar o ponto de interceptação futuro.
-            while ((++futureTime) * bulletSpeed < myPos.distance(predictedPos)) {
-                predictedPos.x = enemyPos.x + enemyVelocity * FasterCalcs.sin(enemyHeading) * futureTime;
-                predictedPos.y = enemyPos.y + enemyVelocity * FasterCalcs.cos(enemyHeading) * futureTime;
+        double confidence = aimAt(Math.max(0, ticksUntilCool), firePower);
+        int bestGun = gunArray.getBestGun();
+        lastAimOffset = Utils.normalRelativeAngle(gunAngles[bestGun] - absoluteBearing);
 
-                // Se a previsão sair do campo de batalha, aborta e usa a mira padrão.
-                if (predictedPos.x < 18 || predictedPos.y < 18 ||
-                    predictedPos.x > robot.getBattleFieldWidth() - 18 ||
-                    predictedPos.y > robot.getBattleFieldHeight() - 18) {
-                    findBestGFAndShoot();
-                    return;
-                }
-            }
-        
-            // Aponta o canhão para o ponto previsto.
-            double theta = Utils.normalRelativeAngle(
-                FasterCalcs.atan2(predictedPos.x - myPos.x, predictedPos.y - myPos.y) - robot.getGunHeadingRadians()
-            );
-            robot.setTurnGunRightRadians(theta);
+        double pointGun = Utils.normalRelativeAngle(gunAngles[bestGun] - robot.getGunHeadingRadians());
+        robot.setTurnGunRightRadians(pointGun);
 
-            // Atira se a arma não estiver quente e a mira estiver estável.
-            if (robot.getGunHeat() == 0 && Math.abs(robot.getGunTurnRemainingRadians()) < Math.atan(36.0 / distance)) {
-                if (robot.setFireBullet(firePower) != null) {
-                    waveManager.addWave(firePower);
-                    hitTracker.logShotFired();
-                }
+        // Atira se a arma não estiver quente, o canhão já estiver sobre o inimigo
+        // e a posição do inimigo não for só um palpite de um scan muito antigo.
+        Bullet bullet = null;
+        int shot = -1;
+        if(ticksUntilCool == 0 && confidence >= MIN_FIRE_CONFIDENCE
+                && Math.abs(pointGun) < Math.atan(18.0 / distance)) {
+            bullet = robot.setFireBullet(firePower);
+            if(bullet != null) {
+                shot = hitTracker.logShotFired(distance, firePower);
             }
-            return; // Finaliza para não usar a mira GF.
         }
 
-        // Se o alvo não for linear, usa a mira GuessFactor original.
-        findBestGFAndShoot();
+        // Snapshot do contexto no momento do tiro (real ou virtual). Os ângulos
+        // de um turno de pré-mira valem para o turno futuro e não pontuam as miras.
+        waveManager.addWave(firePower, getSegmentOffset(), bullet, shot, gunAngles, ticksUntilCool == 0 ? bestGun : -1);
+        return bullet;
     }
 
     /**
-     * Implementa a lógica da mira estatística (GuessFactor).
-     * Encontra o GF mais provável e comanda o robô para atirar.
-     * Este método foi refatorado de shoot() para evitar duplicação de código.
+     * Roda todas as miras virtuais sobre o estado do turno em que a bala vai sair.
+     * O estado do inimigo nesse turno vem do histórico ({@link GameData#enemyStateAt}),
+     * o que cobre tanto a pré-mira quanto os turnos em que o radar perdeu o inimigo.
+     * Os estados previstos substituem os atuais no GameData só durante a chamada.
+     * @param ticksAhead Em quantos turnos a bala deve sair (0 = agora).
+     * @param firePower A potência do tiro.
+     * @return A confiança do estado do inimigo usado.
      */
-    private void findBestGFAndShoot() {
-        double bestGF = findBestGF();
-        double firePower = BulletPowerSelector.getBestPower(
-            gameData.myState.energy,
-            gameData.enemyState.energy,
-            gameData.myState.location.distance(gameData.enemyState.location),
-            hitTracker);
-        double bulletSpeed = 20 - (3 * firePower);
-        double escapeAngle = FasterCalcs.asin(8.0 / bulletSpeed);
-
-        double absoluteBearing = FasterCalcs.atan2(
-            gameData.enemyState.location.x - gameData.myState.location.x,
-            gameData.enemyState.location.y - gameData.myState.location.y
-        );
-
-        int enemyDirection = (int) Math.signum(gameData.enemyState.velocity);
-        if(enemyDirection == 0) enemyDirection = 1;
-
-        double finalAngle = absoluteBearing + (bestGF * escapeAngle * enemyDirection);
-        double pointGun = Utils.normalRelativeAngle(finalAngle - robot.getGunHeadingRadians());
-
-        robot.setTurnGunRightRadians(pointGun);
+    private double aimAt(int ticksAhead, double firePower)
+    {
+        long fireTime = robot.getTime() + ticksAhead;
+        if(gameData.enemyState.time == fireTime && gameData.myState.time == fireTime)
+        {
+            gunArray.aimAll(firePower, gunAngles);
+            return 1;
+        }
 
-        if(robot.getGunHeat() == 0 && Math.abs(pointGun) < 0.02) {
-            if(robot.setFireBullet(firePower) != null) {
-                waveManager.addWave(firePower);
-                hitTracker.logShotFired();
-            }
+        BotState myState = gameData.myState;
+        double confidence = gameData.enemyStateAt(fireTime, predictedEnemyState);
+        gameData.predict(myState, (int) (fireTime - myState.time), 0, predictedMyState);
+        // A segmentação (velocidade lateral, tempo desde a inversão) também passa a ser a do turno do tiro.
+        gameData.usePredictedStates(predictedMyState, predictedEnemyState);
+        try
+        {
+            gunArray.aimAll(firePower, gunAngles);
+        }
+        finally
+        {
+            gameData.restoreStates();
         }
+        return confidence;
     }
-    
+
     /**
      * Procura no array BINS pelo GuessFactor com a maior pontuação (mais acertos)
-     * para a situação atual.
+     * para a situação atual. Em vez do bin isolado de maior valor, escolhe o centro
+     * da janela com a largura angular do inimigo na distância atual, já que
+     * qualquer ponto dessa janela acertaria. A busca fica em cache no StatBuffer.
+     * @param layer A camada do BINS consultada.
+     * @param escapeAngles Os ângulos de escape do tiro, de {@link GuessFactorGun#escapeAngles}.
      * @return O melhor GuessFactor (um valor entre -1.0 e 1.0).
      */
-    private double findBestGF() {
+    double findBestGF(int layer, double[] escapeAngles) {
         int distanceIndex = getDistanceIndex();
         int velocityIndex = getVelocityIndex();
         int accelIndex = getAccelerationIndex();
-        int bestIndex = zeroIndex;
+        int segment = (distanceIndex * VELOCITY_BINS + velocityIndex) * ACCEL_BINS + accelIndex;
 
-        for(int i = 0; i < GF_BINS; i++) {
-            if(BINS[distanceIndex][velocityIndex][accelIndex][i] > BINS[distanceIndex][velocityIndex][accelIndex][bestIndex]) {
-                bestIndex = i;
-            }
-        }
+        double distance = gameData.myState.location.distance(gameData.enemyState.location);
+        double escapeAngle = 0.5 * (escapeAngles[0] + escapeAngles[1]);
+        double halfWidth = Math.atan(BOT_HALF_WIDTH / distance);
+        int halfWindow = escapeAngle > 0 ? (int) (halfWidth / escapeAngle * zeroIndex) : zeroIndex;
+        int bestIndex = BINS.bestWindow(BINS.offset(layer, segment), zeroIndex, Math.min(halfWindow, zeroIndex));
 
         double bestGF = (double)(bestIndex - zeroIndex) / (double) zeroIndex;
 
-        System.out.println(
-            "MIRA INFO [T:" + robot.getTime() + "]" +
-            " | D.Bin: " + distanceIndex +
-            " | V.Bin: " + velocityIndex +
-            " | A.Bin: " + accelIndex +
-            " | Best GF: " + String.format("%.2f", bestGF)
-        );
+        if(Log.DEBUG) {
+            Log.line(robot.getTime()).append("MIRA INFO")
+                .append(" | Camada: ").append(layer)
+                .append(" | D.Bin: ").append(distanceIndex)
+                .append(" | V.Bin: ").append(velocityIndex)
+                .append(" | A.Bin: ").append(accelIndex)
+                .append(" | Best GF: ").append(bestGF, 2)
+                .end();
+        }
 
         return bestGF;
     }
 
     /**
-     * Registra um acerto no array de estatísticas, aumentando a pontuação
-     * do GuessFactor que resultou no acerto.
-     * @param GF O GuessFactor do tiro bem-sucedido.
+     * Registra no buffer de estatísticas o GuessFactor visitado pelo inimigo,
+     * no segmento em que a onda foi disparada. A amostra é espalhada pelos bins
+     * vizinhos com o kernel de {@link #KERNEL_BANDWIDTH}. Ondas de tiros reais
+     * também alimentam a camada anti-surfista, pois surfistas só reagem a elas.
+     * @param segmentOffset O deslocamento do segmento (na camada principal) no momento do tiro.
+     * @param GF O GuessFactor visitado.
+     * @param weight O peso da amostra (ondas reais pesam mais que as virtuais).
+     * @param firing true se a onda tinha uma bala real.
      */
-    public void logSuccess(double GF) {
-        int distanceIndex = getDistanceIndex();
-        int velocityIndex = getVelocityIndex();
-        int accelIndex = getAccelerationIndex(); 
-        
+    public static void logSuccess(int segmentOffset, double GF, double weight, boolean firing) {
         int index = (int) Math.round((GF * zeroIndex) + zeroIndex); 
         
-        BINS[distanceIndex][velocityIndex][accelIndex][index] += 1.0;
+        BINS.addSmoothed(segmentOffset, index, weight);
+        if(firing) {
+            BINS.addSmoothed(BINS.toLayer(segmentOffset, ANTI_SURFER_LAYER), index, 1.0);
+        }
     }
 
     /**
      * Chamado quando um de nossos tiros atinge o inimigo.
-     * Este método calcula qual foi o GuessFactor do tiro e o registra.
-     * @param impactLocation O ponto exato (x, y) do impacto.
-     * @param bulletPower A potência do tiro que acertou.
+     * A onda da bala é encontrada pelo WaveManager, que também registra o acerto
+     * no HitRateTracker e o GuessFactor do impacto e retira a onda.
+     * @param bullet A bala que acertou.
      */
-    public void onBulletHit(Point2D.Double impactLocation, double bulletPower) {
-        Wave hitWave = waveManager.findCorrectWave(impactLocation, bulletPower, robot.getTime());
-        if(hitWave == null) {
+    public void onBulletHit(Bullet bullet) {
+        double guessFactor = waveManager.onBulletHit(bullet);
+        if(Double.isNaN(guessFactor)) {
             return;
         }
 
-        double offsetAngle = Utils.normalRelativeAngle(
-            FasterCalcs.atan2(impactLocation.x - hitWave.origin.x, impactLocation.y - hitWave.origin.y) - hitWave.absoluteBearing
-        );
-
-        double escapeAngle = FasterCalcs.asin(8.0 / hitWave.bulletSpeed);
-        double guessFactor = (offsetAngle / escapeAngle * hitWave.direciton);
-
-        guessFactor = Math.max(-1.0, Math.min(1.0, guessFactor));
-
-        logSuccess(guessFactor);
-        hitTracker.logShotHit();
-
-        System.out.println("ACERTO! GF = " + String.format("%.2f", guessFactor));
+        if(Log.INFOS) Log.line(robot.getTime()).append("ACERTO! GF = ").append(guessFactor, 2).end();
     }
 
     /**
-     * Reduz (decaimento) levemente todos os valores no array BINS.
+     * Reduz (decaimento) levemente todos os valores no buffer BINS.
      * Isso permite que a mira "esqueça" dados antigos e se adapte a novas
-     * estratégias do oponente.
+     * estratégias do oponente. O custo é O(1): só a escala global é atualizada.
      */
     public void decayBINS() {
-        for (int i = 0; i < DISTANCE_BINS; i++) {
-            for (int j = 0; j < VELOCITY_BINS; j++) {
-                for (int k = 0; k < ACCEL_BINS; k++) {
-                    for (int l = 0; l < GF_BINS; l++) {
-                        BINS[i][j][k][l] *= 0.999;
-                    }
-                }
-            }
-        }
+        BINS.decay();
     }
 }
\ No newline at end of file
@@ -1,91 +1,260 @@
 package killBot.gun;
 
+import java.util.Arrays;
+
 import robocode.Rules;
 
 /**
  * Uma classe utilitária estática para selecionar dinamicamente a potência do tiro.
- * Utiliza um conjunto de heurísticas baseadas na situação atual da batalha
- * (energia, distância, taxa de acerto) para equilibrar a produção de dano
- * com a conservação de energia.
+ *
+ * A escolha maximiza o retorno esperado por energia gasta. A probabilidade de
+ * acerto de cada potência vem do resultado das ondas (reais e virtuais): cada
+ * onda registra se a mira que estava no comando teria acertado, separada pelo
+ * tempo de voo da bala. Como o tempo de voo é distância / velocidade da bala,
+ * a mesma estatística responde por qualquer potência em qualquer distância.
+ * Os tiros reais resolvidos no {@link HitRateTracker} entram como limites: os
+ * intervalos de confiança das faixas de distância e de potência seguram a
+ * estimativa quando essas faixas já têm tiros suficientes.
+ *
+ * O retorno de um tiro é o dano causado mais a energia devolvida em caso de
+ * acerto (3x a potência), e o dano útil é limitado à energia que resta ao
+ * inimigo. Para não ficarmos sem energia, a potência nunca passa de uma fração
+ * da nossa energia. O tiro de misericórdia continua tendo prioridade.
+ *
+ * As decisões ficam em cache por estado quantizado (distância, nossa energia,
+ * energia do inimigo e a estimativa inicial, arredondada em {@link #RATE_QUANTUM})
+ * e são calculadas para o próprio estado quantizado, então um acerto no cache
+ * devolve a decisão daquele estado. O cache só é invalidado quando uma
+ * estimativa se afasta mais de {@link #RATE_TOLERANCE} do valor usado nas
+ * decisões: a de uma faixa de tempo de voo ou o intervalo de uma faixa de
+ * potência do {@link HitRateTracker}.
  */
 public class BulletPowerSelector {
 
+    // --- Estatísticas de acerto por tempo de voo ---
+    /** Largura, em turnos de voo, de cada faixa das estatísticas. */
+    private static final int FLIGHT_BAND_TICKS = 8;
+    /** Número de faixas de tempo de voo (a última acumula os voos mais longos). */
+    private static final int FLIGHT_BANDS = 14;
+    /** Decaimento das estatísticas a cada resultado registrado. */
+    private static final double OUTCOME_DECAY = 0.999;
+    /** Peso, em ondas, da taxa geral de acertos usada como estimativa inicial de cada faixa. */
+    private static final double PRIOR_WEIGHT = 3.0;
+    /** Taxa de acerto suposta antes de qualquer tiro. */
+    private static final double DEFAULT_HIT_RATE = 0.1;
+
+    /** Acertos e ondas (com decaimento) por faixa; estáticos para sobreviverem entre rounds. */
+    private static final double[] HITS = new double[FLIGHT_BANDS];
+    private static final double[] SAMPLES = new double[FLIGHT_BANDS];
+
+    // --- Escolha da potência ---
+    /** A potência nunca passa da nossa energia dividida por este número de tiros de reserva. */
+    private static final double RESERVE_SHOTS = 6.0;
+    /** Passo das potências candidatas. */
+    private static final double POWER_STEP = 0.1;
+
+    // --- Cache das decisões ---
+    private static final double DISTANCE_STEP = 50;
+    private static final int DISTANCE_KEYS = 25;
+    private static final double MY_ENERGY_STEP = 5;
+    private static final int MY_ENERGY_KEYS = 21;
+    private static final double ENEMY_ENERGY_STEP = 2;
+    private static final int ENEMY_ENERGY_KEYS = 51;
+    /** Resolução da estimativa inicial que entra na chave do cache. */
+    private static final double RATE_QUANTUM = 0.01;
+    /** Quanto uma estimativa de faixa pode se afastar da usada no cache antes de invalidá-lo. */
+    public static final double RATE_TOLERANCE = 0.02;
+
+    private static final float[] CACHED_POWER = new float[DISTANCE_KEYS * MY_ENERGY_KEYS * ENEMY_ENERGY_KEYS];
+    /**
+     * Versão das estatísticas usada em cada decisão do cache (0 = vazio). Muda
+     * quando a estimativa de alguma faixa se afasta da usada nas decisões.
+     */
+    private static final int[] CACHED_VERSION = new int[CACHED_POWER.length];
+    /** Estimativa inicial (em passos de RATE_QUANTUM) usada em cada decisão do cache. */
+    private static final int[] CACHED_PRIOR = new int[CACHED_POWER.length];
+    private static int version = 1;
+    /**
+     * Parcelas da estimativa de cada faixa de tempo de voo na última invalidação:
+     * a dos acertos e a do peso da estimativa inicial (ver {@link #bandRate}).
+     */
+    private static final double[] CACHED_BAND_HITS = new double[FLIGHT_BANDS];
+    private static final double[] CACHED_BAND_WEIGHT = new double[FLIGHT_BANDS];
+    /** Área de trabalho para os intervalos de confiança do HitRateTracker. */
+    private static final double[] CONFIDENCE = new double[2];
+
+    /**
+     * Esquece as estatísticas de acerto e as decisões em cache (troca de oponente).
+     */
+    public static void clearStats()
+    {
+        Arrays.fill(HITS, 0.0);
+        Arrays.fill(SAMPLES, 0.0);
+        Arrays.fill(CACHED_BAND_HITS, 0.0);
+        Arrays.fill(CACHED_BAND_WEIGHT, 0.0);
+        version++;
+    }
+
+    /**
+     * Invalida as decisões em cache. Chamado pelo {@link HitRateTracker} quando o
+     * intervalo de uma faixa de potência se afasta do usado nas decisões.
+     */
+    public static void invalidateCache()
+    {
+        version++;
+    }
+
+    /**
+     * Registra o resultado de uma onda que passou pelo inimigo.
+     * @param flightTicks Quantos turnos a onda levou até alcançar o inimigo.
+     * @param hit true se a mira no comando no momento do tiro teria acertado.
+     */
+    public static void recordOutcome(long flightTicks, boolean hit)
+    {
+        int band = (int) Math.min(FLIGHT_BANDS - 1, flightTicks / FLIGHT_BAND_TICKS);
+        boolean changed = false;
+        for(int i = 0; i < FLIGHT_BANDS; i++)
+        {
+            HITS[i] *= OUTCOME_DECAY;
+            SAMPLES[i] *= OUTCOME_DECAY;
+            if(i == band)
+            {
+                SAMPLES[i] += 1;
+                if(hit)
+                {
+                    HITS[i] += 1;
+                }
+            }
+            // O decaimento também mexe no peso da estimativa inicial, então todas as faixas são conferidas.
+            double total = SAMPLES[i] + PRIOR_WEIGHT;
+            if(Math.abs(HITS[i] / total - CACHED_BAND_HITS[i]) > RATE_TOLERANCE
+                    || Math.abs(PRIOR_WEIGHT / total - CACHED_BAND_WEIGHT[i]) > RATE_TOLERANCE)
+            {
+                changed = true;
+            }
+        }
+        if(changed)
+        {
+            // Todas as faixas passam a valer como referência, já que o cache inteiro é refeito.
+            for(int i = 0; i < FLIGHT_BANDS; i++)
+            {
+                double total = SAMPLES[i] + PRIOR_WEIGHT;
+                CACHED_BAND_HITS[i] = HITS[i] / total;
+                CACHED_BAND_WEIGHT[i] = PRIOR_WEIGHT / total;
+            }
+            version++;
+        }
+    }
+
     /**
      * Calcula a melhor potência de tiro a ser usada com base em vários fatores do jogo.
      *
      * @param myEnergy A energia atual do nosso robô.
      * @param enemyEnergy A energia atual do robô inimigo.
      * @param distance A distância atual até o inimigo.
-     * @param hitTracker O objeto que rastreia nossa taxa de acertos histórica.
-     * @return A potência de tiro calculada, um valor geralmente entre 0.1 e 3.0.
+     * @param hitTracker O objeto que rastreia nossa taxa de acertos, usada como estimativa inicial.
+     * @return A potência de tiro calculada, um valor entre 0.1 e 3.0.
      */
     public static double getBestPower(double myEnergy, double enemyEnergy, double distance, HitRateTracker hitTracker)
     {
-        double finalPower;
-        double currentHitRate = hitTracker.getHitRate();
-        int hits = hitTracker.getHits();
-        
-        // --- Lógica 1: Tiro de Misericórdia (Kill Shot) ---
-        // Se pudermos destruir o inimigo com um tiro, essa é a maior prioridade.
-        double killShot = enemyEnergy / 4.0;
-        if(myEnergy > killShot + 1 && killShot > 0.1 && killShot <= Rules.MAX_BULLET_POWER) {
+        // --- Tiro de Misericórdia (Kill Shot) ---
+        // A menor potência cujo dano destrói o inimigo encerra o round; vale mais que o retorno por energia.
+        double killShot = enemyEnergy <= 4 ? enemyEnergy / 4.0 : (enemyEnergy + 2) / 6.0;
+        if(myEnergy > killShot + 1 && killShot >= Rules.MIN_BULLET_POWER && killShot <= Rules.MAX_BULLET_POWER) {
             return killShot;
         }
 
-        // --- Lógica 2: Conservação Extrema de Energia ---
-        // Se nossa energia está muito baixa, atiramos o mínimo possível apenas para coletar dados.
-        if(myEnergy < 15) {
-            return 0.1;
-        }
+        int distanceKey = Math.min(DISTANCE_KEYS - 1, (int) Math.round(distance / DISTANCE_STEP));
+        int myEnergyKey = Math.min(MY_ENERGY_KEYS - 1, (int) (myEnergy / MY_ENERGY_STEP));
+        int enemyEnergyKey = Math.min(ENEMY_ENERGY_KEYS - 1, (int) Math.ceil(enemyEnergy / ENEMY_ENERGY_STEP));
+        int key = (distanceKey * MY_ENERGY_KEYS + myEnergyKey) * ENEMY_ENERGY_KEYS + enemyEnergyKey;
+
+        // Tudo é calculado para o estado quantizado, para o cache valer para a faixa inteira.
+        double keyDistance = Math.max(DISTANCE_STEP / 2, distanceKey * DISTANCE_STEP);
+        int priorKey = (int) Math.round(priorHitRate(hitTracker, keyDistance) / RATE_QUANTUM);
 
-        // --- Lógica 3: Vantagem Energética Massiva ---
-        // Se temos muito mais energia, podemos ser mais agressivos.
-        if(myEnergy > enemyEnergy + 40)
+        double power;
+        if(CACHED_VERSION[key] == version && CACHED_PRIOR[key] == priorKey)
         {
-            // Se a mira está ruim, não adianta gastar muita energia.
-            if(currentHitRate < 0.20 && hits > 7)
-            {
-                finalPower = currentHitRate * 10.0;
-            }
-            else
-            {
-                finalPower = Rules.MAX_BULLET_POWER; // Atira com força total.
-            }
+            power = CACHED_POWER[key];
+        }
+        else
+        {
+            // Decide pelo pior caso de cada faixa: menos energia nossa, mais energia do inimigo.
+            power = optimize(
+                keyDistance,
+                myEnergyKey * MY_ENERGY_STEP,
+                enemyEnergyKey * ENEMY_ENERGY_STEP,
+                priorKey * RATE_QUANTUM,
+                hitTracker);
+            CACHED_POWER[key] = (float) power;
+            CACHED_VERSION[key] = version;
+            CACHED_PRIOR[key] = priorKey;
         }
 
-        // --- Lógica 4: Desvantagem Energética ---
-        // Se temos menos energia, jogamos de forma mais conservadora.
-        else if(myEnergy < enemyEnergy)
+        // Garante que a potência é válida e que não gastaremos energia a ponto de morrer.
+        return Math.max(Rules.MIN_BULLET_POWER, Math.min(power, myEnergy - 0.1));
+    }
+
+    /**
+     * Testa todas as potências candidatas e devolve a de maior retorno esperado por energia gasta.
+     * A chance de acerto de cada potência é limitada ao intervalo de confiança da
+     * taxa recente da sua faixa de potência, que só aperta quando a faixa tem tiros suficientes.
+     */
+    private static double optimize(double distance, double myEnergy, double enemyEnergy, double prior,
+            HitRateTracker hitTracker)
+    {
+        double maxPower = Math.max(Rules.MIN_BULLET_POWER, Math.min(Rules.MAX_BULLET_POWER, myEnergy / RESERVE_SHOTS));
+
+        double bestPower = Rules.MIN_BULLET_POWER;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for(double power = Rules.MIN_BULLET_POWER; power <= maxPower + 1e-9; power += POWER_STEP)
         {
-            // Se a mira está boa, usamos um tiro de potência média e confiável.
-            if(currentHitRate > 0.35 && hits > 7)
+            hitTracker.getPowerConfidence(power, CONFIDENCE);
+            double hitChance = Math.max(CONFIDENCE[0], Math.min(CONFIDENCE[1],
+                    hitProbability(distance / Rules.getBulletSpeed(power), prior)));
+            double damage = Math.min(Rules.getBulletDamage(power), Math.max(enemyEnergy, 0.1));
+            // Retorno esperado por energia investida: o dano causado mais a energia devolvida no acerto.
+            double score = hitChance * (damage + 3 * power) / power;
+            // Em empate, fica com a potência maior: mesmo retorno por energia e mais dano por tiro.
+            if(score >= bestScore - 1e-9)
             {
-                finalPower = 1.99;
-            }
-            else
-            {
-                // Senão, calcula a potência com base na distância e na nossa "confiança" (ratio de energia).
-                double confidenceFactor = myEnergy / enemyEnergy;
-                double powerByDistance = 700 / distance;
-                finalPower = powerByDistance * confidenceFactor;
-
-                // Garante um tiro um pouco mais forte se estivermos muito perto.
-                if(distance < 150)
-                {
-                    finalPower = Math.max(finalPower, 1.5);
-                }
+                bestScore = Math.max(score, bestScore);
+                bestPower = power;
             }
         }
+        return bestPower;
+    }
 
-        // --- Lógica 5: Situação de Energia Equilibrada ---
-        // A potência é baseada principalmente na distância.
-        else
-        {
-            finalPower = 700 / distance;
-        }
+    /**
+     * Estima a chance de acerto para um tempo de voo, interpolando entre as faixas.
+     * Cada faixa começa na taxa geral de acertos e vai sendo puxada pelos próprios resultados.
+     */
+    private static double hitProbability(double flightTicks, double prior)
+    {
+        double position = Math.max(0, flightTicks / FLIGHT_BAND_TICKS - 0.5);
+        int low = Math.min(FLIGHT_BANDS - 1, (int) position);
+        int high = Math.min(FLIGHT_BANDS - 1, low + 1);
+        double t = Math.min(1, position - low);
+        return (1 - t) * bandRate(low, prior) + t * bandRate(high, prior);
+    }
+
+    private static double bandRate(int band, double prior)
+    {
+        return (HITS[band] + prior * PRIOR_WEIGHT) / (SAMPLES[band] + PRIOR_WEIGHT);
+    }
 
-        // --- Finalização: Garante que a potência é válida ---
-        // Garante que a potência não é menor que 0.1 e que não gastaremos energia a ponto de morrer.
-        return Math.max(0.1, Math.min(finalPower, myEnergy - 0.1));
+    /**
+     * Taxa de acerto usada como estimativa inicial: a taxa do round (ou a padrão,
+     * antes do primeiro tiro), trazida para dentro do intervalo de confiança da
+     * taxa recente da faixa de distância atual. Com poucos tiros na faixa o
+     * intervalo é largo e vale a taxa do round; com muitos ele se fecha em volta
+     * da taxa da faixa.
+     */
+    private static double priorHitRate(HitRateTracker hitTracker, double distance)
+    {
+        double overall = hitTracker.getShots() > 0 ? hitTracker.getHitRate() : DEFAULT_HIT_RATE;
+        hitTracker.getDistanceConfidence(distance, CONFIDENCE);
+        return Math.max(CONFIDENCE[0], Math.min(CONFIDENCE[1], overall));
     }
-}
\ No newline at end of file
+}
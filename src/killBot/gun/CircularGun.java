@@ -0,0 +1,45 @@
+package killBot.gun;
+
+import killBot.data.BotState;
+import killBot.data.GameData;
+import robocode.AdvancedRobot;
+
+/**
+ * Mira preditiva circular: supõe que o inimigo mantém a velocidade atual e a
+ * mesma taxa de giro observada entre os dois últimos scans do histórico.
+ * A simulação (com limite nas paredes) fica em {@link PredictiveTargeting}.
+ */
+public class CircularGun implements VirtualGun {
+
+    /** Referência ao robô principal para obter as dimensões do campo. */
+    private AdvancedRobot robot;
+    /** Objeto que contém todos os dados de estado do jogo. */
+    private GameData gameData;
+
+    /**
+     * Construtor da classe CircularGun.
+     * @param robot A instância do robô principal.
+     * @param gameData O objeto de dados do jogo.
+     */
+    public CircularGun(AdvancedRobot robot, GameData gameData)
+    {
+        this.robot = robot;
+        this.gameData = gameData;
+    }
+
+    @Override
+    public double aim(double bulletPower)
+    {
+        BotState enemy = gameData.enemyState;
+        return PredictiveTargeting.circularIntercept(
+            gameData.myState.location.x, gameData.myState.location.y,
+            enemy.location.x, enemy.location.y, enemy.heading, enemy.velocity, gameData.getEnemyTurnRate(),
+            20 - (3 * bulletPower), robot.getBattleFieldWidth(), robot.getBattleFieldHeight());
+    }
+
+    @Override
+    public String getName()
+    {
+        return "Circular";
+    }
+}
@@ -0,0 +1,204 @@
+package killBot.gun;
+
+import killBot.data.BotState;
+import killBot.data.GameData;
+import robocode.AdvancedRobot;
+
+/**
+ * Mira por clusterização dinâmica (Dynamic Clustering).
+ * Em vez de dividir a situação em segmentos fixos como o {@link Aimer}, cada onda
+ * (real ou virtual) guarda um vetor de atributos da situação no momento do tiro. Quando a
+ * onda passa pelo inimigo, o vetor é inserido em uma {@link KdTree} junto com o
+ * GuessFactor visitado. Para mirar, buscamos os k vizinhos mais parecidos com a
+ * situação atual e escolhemos o GuessFactor de maior densidade (kernel) entre eles.
+ */
+public class DynamicClusteringGun implements VirtualGun {
+
+    /** Número de atributos do vetor de situação. */
+    public static final int DIMENSIONS = 5;
+    /** Número máximo de situações guardadas; as mais antigas são descartadas. */
+    public static final int MAX_POINTS = 2500;
+    /** Mínimo de situações guardadas para a mira ser considerada confiável. */
+    public static final int MIN_POINTS = 10;
+    /** Número padrão de vizinhos consultados. */
+    public static final int DEFAULT_K = 25;
+    /** Prazo padrão da busca por turno, em nanossegundos. */
+    public static final long DEFAULT_TIME_BUDGET = 500_000;
+    /** Largura do kernel, em unidades de GuessFactor. */
+    private static final double BANDWIDTH = 0.1;
+
+    // Pesos de cada atributo na distância entre situações.
+    private static final double DISTANCE_WEIGHT = 3.0;
+    private static final double LATERAL_VELOCITY_WEIGHT = 4.0;
+    private static final double ACCELERATION_WEIGHT = 2.0;
+    private static final double WALL_WEIGHT = 2.0;
+    private static final double DIRECTION_CHANGE_WEIGHT = 1.0;
+
+    /** A árvore é estática para que o aprendizado sobreviva entre rounds, como o BINS. */
+    private static final KdTree TREE = new KdTree(DIMENSIONS, MAX_POINTS);
+
+    /** Referência ao robô principal para obter as dimensões do campo. */
+    private AdvancedRobot robot;
+    /** Objeto que contém todos os dados de estado do jogo. */
+    private GameData gameData;
+
+    /** Número de vizinhos consultados por mira. */
+    private int k = DEFAULT_K;
+    /** Prazo da busca por turno, em nanossegundos. */
+    private long timeBudget = DEFAULT_TIME_BUDGET;
+
+    // Áreas de trabalho reaproveitadas a cada consulta.
+    private final double[] query = new double[DIMENSIONS];
+    private final int[] neighbours = new int[DEFAULT_K * 4];
+    private final double[] distances = new double[DEFAULT_K * 4];
+    private final double[] neighbourGF = new double[DEFAULT_K * 4];
+    private final double[] neighbourWeight = new double[DEFAULT_K * 4];
+
+    /**
+     * Construtor da classe DynamicClusteringGun.
+     * @param robot A instância do robô principal.
+     * @param gameData O objeto de dados do jogo.
+     */
+    public DynamicClusteringGun(AdvancedRobot robot, GameData gameData)
+    {
+        this.robot = robot;
+        this.gameData = gameData;
+    }
+
+    /**
+     * Preenche um vetor com os atributos (já ponderados) da situação atual.
+     * Atributos: distância, velocidade lateral, aceleração, distância à parede
+     * e tempo desde a última inversão de direção.
+     * @param out O vetor de saída.
+     * @param offset A posição de out onde o primeiro atributo é escrito.
+     */
+    public void fillFeatures(double[] out, int offset)
+    {
+        BotState enemy = gameData.enemyState;
+        double distance = gameData.myState.location.distance(enemy.location);
+
+        double acceleration = 0;
+        if(gameData.enemyHistory.size() > 1)
+        {
+            acceleration = Math.abs(enemy.velocity) - Math.abs(gameData.enemyHistory.getVelocity(1));
+        }
+
+        double wallDistance = Math.min(
+            Math.min(enemy.location.x, robot.getBattleFieldWidth() - enemy.location.x),
+            Math.min(enemy.location.y, robot.getBattleFieldHeight() - enemy.location.y));
+
+        out[offset + 0] = Math.min(distance / 800.0, 1.5) * DISTANCE_WEIGHT;
+        out[offset + 1] = Math.abs(gameData.enemyLateralVelocity) / 8.0 * LATERAL_VELOCITY_WEIGHT;
+        out[offset + 2] = (Math.max(-2, Math.min(1, acceleration)) + 2) / 3.0 * ACCELERATION_WEIGHT;
+        out[offset + 3] = Math.min(wallDistance / 400.0, 1.0) * WALL_WEIGHT;
+        out[offset + 4] = Math.min(gameData.getEnemyTimeSinceDirectionChange() / 100.0, 1.0) * DIRECTION_CHANGE_WEIGHT;
+    }
+
+    /**
+     * Registra o GuessFactor que o inimigo visitou em uma situação passada.
+     * @param features O array com os atributos da situação no momento do tiro.
+     * @param offset A posição do primeiro atributo em features.
+     * @param guessFactor O GuessFactor visitado (-1 a 1).
+     */
+    public void record(double[] features, int offset, double guessFactor)
+    {
+        TREE.add(features, offset, guessFactor);
+    }
+
+    /**
+     * Esquece todas as situações aprendidas (troca de oponente).
+     */
+    public static void clearStats()
+    {
+        TREE.clear();
+    }
+
+    /**
+     * @return true se já existem situações suficientes para confiar nesta mira.
+     */
+    public boolean hasEnoughData()
+    {
+        return TREE.size() >= MIN_POINTS;
+    }
+
+    /**
+     * Procura o GuessFactor mais provável para a situação atual.
+     * A busca respeita o prazo configurado; se ele estourar, usa os vizinhos
+     * encontrados até aquele momento.
+     * @return O melhor GuessFactor (entre -1.0 e 1.0), ou 0 se não houver dados.
+     */
+    public double findBestGF()
+    {
+        fillFeatures(query, 0);
+        long deadline = System.nanoTime() + timeBudget;
+        int found = TREE.nearest(query, k, deadline, neighbours, distances);
+        if(found == 0)
+        {
+            return 0;
+        }
+
+        for(int i = 0; i < found; i++)
+        {
+            neighbourGF[i] = TREE.getValue(neighbours[i]);
+            neighbourWeight[i] = 1.0 / (1.0 + Math.sqrt(distances[i]));
+        }
+
+        // Densidade por kernel quártico avaliada em cada GuessFactor vizinho.
+        double bestGF = 0;
+        double bestDensity = -1;
+        for(int i = 0; i < found; i++)
+        {
+            double density = 0;
+            for(int j = 0; j < found; j++)
+            {
+                double u = (neighbourGF[i] - neighbourGF[j]) / BANDWIDTH;
+                if(u > -1 && u < 1)
+                {
+                    double w = 1 - u * u;
+                    density += neighbourWeight[j] * w * w;
+                }
+            }
+            if(density > bestDensity)
+            {
+                bestDensity = density;
+                bestGF = neighbourGF[i];
+            }
+        }
+        return bestGF;
+    }
+
+    @Override
+    public double aim(double bulletPower)
+    {
+        return GuessFactorGun.toAngle(gameData, hasEnoughData() ? findBestGF() : 0, bulletPower);
+    }
+
+    @Override
+    public String getName()
+    {
+        return "DC";
+    }
+
+    /**
+     * Define o número de vizinhos consultados.
+     * @param k O novo número de vizinhos (limitado ao tamanho das áreas de trabalho).
+     */
+    public void setK(int k)
+    {
+        this.k = Math.max(1, Math.min(k, neighbours.length));
+    }
+
+    /**
+     * Define o prazo máximo da busca por turno.
+     * @param nanos O prazo em nanossegundos.
+     */
+    public void setTimeBudget(long nanos)
+    {
+        this.timeBudget = nanos;
+    }
+
+    public int getSampleCount()
+    {
+        return TREE.size();
+    }
+}
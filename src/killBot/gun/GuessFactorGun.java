@@ -0,0 +1,109 @@
+package killBot.gun;
+
+import killBot.data.GameData;
+import killBot.utils.math.FasterCalcs;
+import killBot.utils.math.PreciseEscapeAngle;
+
+/**
+ * Mira estatística segmentada: usa o melhor GuessFactor de uma camada do
+ * {@link Aimer#BINS} para o segmento atual. Uma instância por camada (a
+ * principal e a anti-surfista) compete no {@link VirtualGunArray}.
+ */
+public class GuessFactorGun implements VirtualGun {
+
+    /** Área de trabalho para os ângulos de escape (o robô roda em uma única thread). */
+    private static final double[] ESCAPE_ANGLES = new double[2];
+
+    /** Objeto que contém todos os dados de estado do jogo. */
+    private GameData gameData;
+    /** Dono do buffer BINS e da lógica de segmentação. */
+    private Aimer aimer;
+    /** Camada do BINS consultada por esta mira. */
+    private final int layer;
+    /** Nome da mira nas pontuações. */
+    private final String name;
+    /** Ângulos de escape do tiro atual, calculados uma vez por mira. */
+    private final double[] escapeAngles = new double[2];
+
+    /**
+     * Construtor da classe GuessFactorGun.
+     * @param gameData O objeto de dados do jogo.
+     * @param aimer O Aimer que calcula o segmento atual.
+     * @param layer A camada do BINS consultada.
+     * @param name O nome da mira.
+     */
+    public GuessFactorGun(GameData gameData, Aimer aimer, int layer, String name)
+    {
+        this.gameData = gameData;
+        this.aimer = aimer;
+        this.layer = layer;
+        this.name = name;
+    }
+
+    @Override
+    public double aim(double bulletPower)
+    {
+        escapeAngles(gameData, bulletPower, escapeAngles);
+        return toAngle(gameData, aimer.findBestGF(layer, escapeAngles), escapeAngles);
+    }
+
+    @Override
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Converte um GuessFactor em ângulo absoluto de tiro, usando o ângulo máximo
+     * de escape preciso do lado para onde o GuessFactor aponta e a direção do inimigo.
+     * @param gameData O objeto de dados do jogo.
+     * @param guessFactor O GuessFactor (-1 a 1).
+     * @param bulletPower A potência do tiro.
+     * @return O ângulo absoluto do tiro.
+     */
+    public static double toAngle(GameData gameData, double guessFactor, double bulletPower)
+    {
+        escapeAngles(gameData, bulletPower, ESCAPE_ANGLES);
+        return toAngle(gameData, guessFactor, ESCAPE_ANGLES);
+    }
+
+    /**
+     * Converte um GuessFactor em ângulo absoluto de tiro com ângulos de escape já calculados.
+     * @param gameData O objeto de dados do jogo.
+     * @param guessFactor O GuessFactor (-1 a 1).
+     * @param escapeAngles Os ângulos de escape, de {@link #escapeAngles}.
+     * @return O ângulo absoluto do tiro.
+     */
+    public static double toAngle(GameData gameData, double guessFactor, double[] escapeAngles)
+    {
+        double absoluteBearing = FasterCalcs.atan2(
+            gameData.enemyState.location.x - gameData.myState.location.x,
+            gameData.enemyState.location.y - gameData.myState.location.y
+        );
+
+        int enemyDirection = (int) Math.signum(gameData.enemyState.velocity);
+        if(enemyDirection == 0) enemyDirection = 1;
+
+        double offsetSign = guessFactor * enemyDirection;
+        if(offsetSign == 0)
+        {
+            return absoluteBearing;
+        }
+        return absoluteBearing + offsetSign * (offsetSign > 0 ? escapeAngles[0] : escapeAngles[1]);
+    }
+
+    /**
+     * Calcula os ângulos de escape precisos do inimigo na situação atual.
+     * @param gameData O objeto de dados do jogo.
+     * @param bulletPower A potência do tiro.
+     * @param out Recebe o ângulo horário (offset positivo) em out[0] e o anti-horário em out[1].
+     */
+    public static void escapeAngles(GameData gameData, double bulletPower, double[] out)
+    {
+        PreciseEscapeAngle.compute(
+            gameData.myState.location.x, gameData.myState.location.y,
+            gameData.enemyState.location.x, gameData.enemyState.location.y,
+            gameData.enemyLateralVelocity, bulletPower,
+            gameData.battleFieldWidth, gameData.battleFieldHeight, out);
+    }
+}
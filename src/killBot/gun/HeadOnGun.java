@@ -0,0 +1,38 @@
+package killBot.gun;
+
+import killBot.data.GameData;
+import killBot.utils.math.FasterCalcs;
+
+/**
+ * Mira direta (head-on): atira exatamente onde o inimigo está agora.
+ * Serve de referência e funciona bem contra robôs parados ou que oscilam.
+ */
+public class HeadOnGun implements VirtualGun {
+
+    /** Objeto que contém todos os dados de estado do jogo. */
+    private GameData gameData;
+
+    /**
+     * Construtor da classe HeadOnGun.
+     * @param gameData O objeto de dados do jogo.
+     */
+    public HeadOnGun(GameData gameData)
+    {
+        this.gameData = gameData;
+    }
+
+    @Override
+    public double aim(double bulletPower)
+    {
+        return FasterCalcs.atan2(
+            gameData.enemyState.location.x - gameData.myState.location.x,
+            gameData.enemyState.location.y - gameData.myState.location.y
+        );
+    }
+
+    @Override
+    public String getName()
+    {
+        return "HeadOn";
+    }
+}
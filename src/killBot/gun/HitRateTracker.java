@@ -1,17 +1,71 @@
 package killBot.gun;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
 /**
- * Uma classe utilitária simples para rastrear o número de tiros disparados e acertos.
+ * Rastreia os tiros disparados e os acertos.
  * É usada para calcular a taxa de acerto (hit rate), uma informação valiosa
  * para outras partes do robô, como o {@link BulletPowerSelector}, tomarem decisões.
+ *
+ * Além dos contadores do round, mantém:
+ * - um buffer circular com os últimos {@link #WINDOW} tiros (taxa da janela recente);
+ * - taxas com decaimento exponencial separadas por faixa de distância e de
+ *   potência, que sobrevivem entre rounds como as estatísticas de mira;
+ * - intervalos de confiança (Wilson) para essas taxas.
+ * Nada disso aloca memória durante a batalha.
+ *
+ * Cada tiro recebe um número de sequência em {@link #logShotFired}; quem guarda
+ * a bala (o {@link WaveManager}) guarda também esse número e resolve o tiro por
+ * ele, em O(1), sem procurar a bala na janela.
  */
 public class HitRateTracker {
-    
+
+    /** Número de tiros guardados na janela recente. */
+    public static final int WINDOW = 64;
+    /** Limites superiores das faixas de distância (a última faixa não tem limite). */
+    private static final double[] DISTANCE_LIMITS = { 200, 400, 600 };
+    /** Limites superiores das faixas de potência (a última faixa não tem limite). */
+    private static final double[] POWER_LIMITS = { 1.0, 2.0 };
+    public static final int DISTANCE_BANDS = DISTANCE_LIMITS.length + 1;
+    public static final int POWER_BANDS = POWER_LIMITS.length + 1;
+    /** Decaimento aplicado a uma faixa a cada tiro resolvido nela (~50 tiros de memória). */
+    public static final double BAND_DECAY = 0.98;
+    /** Valor z do intervalo de confiança (1.96 = 95%). */
+    private static final double Z = 1.96;
+
     /** Contador para o número total de tiros que nosso robô disparou. */
     private int shotsFired = 0;
     /** Contador para o número total de tiros que atingiram o inimigo. */
     private int hits = 0;
 
+    // --- Janela recente (buffer circular) ---
+    /** Número de sequência do tiro em cada posição (o tiro n mora em n % WINDOW). */
+    private final int[] windowShot = new int[WINDOW];
+    private final int[] windowDistanceBand = new int[WINDOW];
+    private final int[] windowPowerBand = new int[WINDOW];
+    /** 0 = em voo, 1 = acertou, -1 = errou. */
+    private final int[] windowResult = new int[WINDOW];
+    /** Posição do próximo tiro no buffer. */
+    private int windowHead = 0;
+    private int windowSize = 0;
+    /** Acertos e tiros resolvidos dentro da janela, mantidos em O(1). */
+    private int windowHits = 0;
+    private int windowResolved = 0;
+
+    // --- Taxas por faixa, com decaimento (estáticas para sobreviverem entre rounds) ---
+    private static final double[] DISTANCE_HITS = new double[DISTANCE_BANDS];
+    private static final double[] DISTANCE_SHOTS = new double[DISTANCE_BANDS];
+    private static final double[] POWER_HITS = new double[POWER_BANDS];
+    private static final double[] POWER_SHOTS = new double[POWER_BANDS];
+    /** Área de trabalho para os intervalos de confiança. */
+    private static final double[] INTERVAL = new double[2];
+    /** Intervalo de cada faixa de potência na última invalidação do cache do BulletPowerSelector. */
+    private static final double[] CACHED_POWER_LOW = new double[POWER_BANDS];
+    private static final double[] CACHED_POWER_HIGH = new double[POWER_BANDS];
+
     /**
      * Construtor padrão da classe.
      */
@@ -20,21 +74,96 @@ public class HitRateTracker {
     }
 
     /**
-     * Incrementa o contador de tiros disparados.
+     * Registra um tiro disparado.
      * Este método deve ser chamado toda vez que o robô efetua um disparo.
+     * @param distance A distância até o inimigo no momento do tiro.
+     * @param power A potência do tiro.
+     * @return O número de sequência do tiro, usado para resolvê-lo depois.
      */
-    public void logShotFired()
+    public int logShotFired(double distance, double power)
     {
-        shotsFired++;
+        int shot = shotsFired++;
+
+        // O tiro mais antigo sai da janela.
+        if(windowSize == WINDOW)
+        {
+            int result = windowResult[windowHead];
+            if(result != 0)
+            {
+                windowResolved--;
+                if(result > 0) windowHits--;
+            }
+        }
+        else
+        {
+            windowSize++;
+        }
+
+        windowShot[windowHead] = shot;
+        windowDistanceBand[windowHead] = distanceBand(distance);
+        windowPowerBand[windowHead] = powerBand(power);
+        windowResult[windowHead] = 0;
+        windowHead = (windowHead + 1) % WINDOW;
+        return shot;
     }
 
     /**
-     * Incrementa o contador de acertos.
+     * Registra um acerto.
      * Este método deve ser chamado quando um evento {@code onBulletHit} ocorre.
+     * @param shot O número de sequência do tiro, ou -1 se o tiro não é conhecido
+     * (o acerto ainda conta no total do round).
      */
-    public void logShotHit()
+    public void logShotHit(int shot)
     {
         hits++;
+        resolve(shot, true);
+    }
+
+    /**
+     * Registra um tiro que sumiu sem acertar (bateu na parede ou em outra bala).
+     * @param shot O número de sequência do tiro, ou -1 se o tiro não é conhecido.
+     */
+    public void logShotMissed(int shot)
+    {
+        resolve(shot, false);
+    }
+
+    /**
+     * Marca o resultado de um tiro da janela e atualiza as taxas das suas faixas.
+     * Tiros desconhecidos, já resolvidos ou que já saíram da janela são ignorados.
+     */
+    private void resolve(int shot, boolean hit)
+    {
+        if(shot < 0)
+        {
+            return;
+        }
+        int index = shot % WINDOW;
+        if(shot < shotsFired - windowSize || windowShot[index] != shot || windowResult[index] != 0)
+        {
+            return;
+        }
+        windowResult[index] = hit ? 1 : -1;
+        windowResolved++;
+        if(hit) windowHits++;
+
+        int distance = windowDistanceBand[index];
+        DISTANCE_SHOTS[distance] = DISTANCE_SHOTS[distance] * BAND_DECAY + 1;
+        DISTANCE_HITS[distance] = DISTANCE_HITS[distance] * BAND_DECAY + (hit ? 1 : 0);
+        int power = windowPowerBand[index];
+        POWER_SHOTS[power] = POWER_SHOTS[power] * BAND_DECAY + 1;
+        POWER_HITS[power] = POWER_HITS[power] * BAND_DECAY + (hit ? 1 : 0);
+
+        // As decisões do BulletPowerSelector usam o intervalo da faixa de potência;
+        // a estimativa da faixa de distância já faz parte da chave do cache dele.
+        wilson(POWER_HITS[power], POWER_SHOTS[power], INTERVAL);
+        if(Math.abs(INTERVAL[0] - CACHED_POWER_LOW[power]) > BulletPowerSelector.RATE_TOLERANCE
+                || Math.abs(INTERVAL[1] - CACHED_POWER_HIGH[power]) > BulletPowerSelector.RATE_TOLERANCE)
+        {
+            CACHED_POWER_LOW[power] = INTERVAL[0];
+            CACHED_POWER_HIGH[power] = INTERVAL[1];
+            BulletPowerSelector.invalidateCache();
+        }
     }
 
     /**
@@ -54,6 +183,45 @@ public class HitRateTracker {
         }
     }
 
+    /**
+     * Taxa de acertos dos tiros já resolvidos dentro da janela recente.
+     * @return A taxa (0.0 a 1.0), ou 0.0 se nenhum tiro da janela foi resolvido.
+     */
+    public double getWindowHitRate()
+    {
+        return windowResolved == 0 ? 0.0 : (double) windowHits / windowResolved;
+    }
+
+    /**
+     * @return O número de tiros resolvidos dentro da janela recente.
+     */
+    public int getWindowResolved()
+    {
+        return windowResolved;
+    }
+
+    /**
+     * Intervalo de confiança da taxa de acertos na faixa de uma distância.
+     * @param distance A distância do tiro.
+     * @param out Recebe o limite inferior em out[0] e o superior em out[1].
+     */
+    public void getDistanceConfidence(double distance, double[] out)
+    {
+        int band = distanceBand(distance);
+        wilson(DISTANCE_HITS[band], DISTANCE_SHOTS[band], out);
+    }
+
+    /**
+     * Intervalo de confiança da taxa de acertos na faixa de uma potência.
+     * @param power A potência do tiro.
+     * @param out Recebe o limite inferior em out[0] e o superior em out[1].
+     */
+    public void getPowerConfidence(double power, double[] out)
+    {
+        int band = powerBand(power);
+        wilson(POWER_HITS[band], POWER_SHOTS[band], out);
+    }
+
     /**
      * Retorna o número total de tiros disparados.
      * @return O total de tiros disparados.
@@ -73,12 +241,116 @@ public class HitRateTracker {
     }
 
     /**
-     * Reseta os contadores de tiros e acertos para zero.
-     * Pode ser útil para reiniciar as estatísticas entre as rodadas de uma batalha.
+     * Reseta os contadores e a janela recente.
+     * As taxas por faixa são mantidas, pois valem para a batalha toda.
      */
     public void reset()
     {
         shotsFired = 0;
         hits = 0;
+        Arrays.fill(windowResult, 0);
+        windowHead = 0;
+        windowSize = 0;
+        windowHits = 0;
+        windowResolved = 0;
+    }
+
+    /**
+     * Zera as taxas por faixa (troca de oponente).
+     */
+    public static void clearBands()
+    {
+        Arrays.fill(DISTANCE_HITS, 0.0);
+        Arrays.fill(DISTANCE_SHOTS, 0.0);
+        Arrays.fill(POWER_HITS, 0.0);
+        Arrays.fill(POWER_SHOTS, 0.0);
+        Arrays.fill(CACHED_POWER_LOW, 0.0);
+        Arrays.fill(CACHED_POWER_HIGH, 0.0);
+    }
+
+    /**
+     * Grava as taxas por faixa no perfil do oponente.
+     */
+    public static void saveBands(DataOutputStream out) throws IOException
+    {
+        out.writeByte(DISTANCE_BANDS);
+        out.writeByte(POWER_BANDS);
+        writeAll(out, DISTANCE_HITS);
+        writeAll(out, DISTANCE_SHOTS);
+        writeAll(out, POWER_HITS);
+        writeAll(out, POWER_SHOTS);
+    }
+
+    /**
+     * Lê as taxas gravadas por {@link #saveBands}. Se as faixas mudaram, os
+     * valores gravados são ignorados.
+     */
+    public static void loadBands(DataInputStream in) throws IOException
+    {
+        if(in.readUnsignedByte() != DISTANCE_BANDS || in.readUnsignedByte() != POWER_BANDS)
+        {
+            return;
+        }
+        readAll(in, DISTANCE_HITS);
+        readAll(in, DISTANCE_SHOTS);
+        readAll(in, POWER_HITS);
+        readAll(in, POWER_SHOTS);
+    }
+
+    private static void writeAll(DataOutputStream out, double[] values) throws IOException
+    {
+        for(double value : values)
+        {
+            out.writeFloat((float) value);
+        }
+    }
+
+    private static void readAll(DataInputStream in, double[] values) throws IOException
+    {
+        for(int i = 0; i < values.length; i++)
+        {
+            values[i] = in.readFloat();
+        }
+    }
+
+    /**
+     * Intervalo de Wilson, usando o número efetivo (com decaimento) de tiros.
+     * Sem tiros, o intervalo é o todo [0, 1].
+     */
+    private static void wilson(double hits, double shots, double[] out)
+    {
+        if(shots <= 0)
+        {
+            out[0] = 0;
+            out[1] = 1;
+            return;
+        }
+        double p = hits / shots;
+        double z2 = Z * Z;
+        double denominator = 1 + z2 / shots;
+        double center = (p + z2 / (2 * shots)) / denominator;
+        double margin = Z * Math.sqrt(p * (1 - p) / shots + z2 / (4 * shots * shots)) / denominator;
+        out[0] = Math.max(0, center - margin);
+        out[1] = Math.min(1, center + margin);
+    }
+
+    private static int distanceBand(double distance)
+    {
+        return band(distance, DISTANCE_LIMITS);
+    }
+
+    private static int powerBand(double power)
+    {
+        return band(power, POWER_LIMITS);
+    }
+
+    private static int band(double value, double[] limits)
+    {
+        int band = 0;
+        while(band < limits.length && value >= limits[band])
+        {
+            band++;
+        }
+        return band;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,402 @@
+package killBot.gun;
+
+/**
+ * Árvore KD de tamanho limitado usada pela mira de clusterização dinâmica.
+ *
+ * Os pontos ficam em um buffer circular primitivo: quando a capacidade é
+ * atingida, o ponto mais antigo é descartado (vira uma "lápide" na árvore) e o
+ * novo ocupa o lugar dele. A inserção é incremental; quando o pool de nós se
+ * esgota por causa das lápides, a árvore é reconstruída balanceada só com os
+ * pontos vivos.
+ *
+ * A busca dos k vizinhos mais próximos aceita um prazo em nanossegundos: se ele
+ * estourar, a busca para e devolve os melhores vizinhos encontrados até ali.
+ */
+public class KdTree {
+
+    /** A cada quantos nós visitados a busca confere o relógio. */
+    private static final int CLOCK_CHECK_MASK = 15;
+
+    /** Número de atributos de cada ponto. */
+    private final int dimensions;
+    /** Número máximo de pontos vivos. */
+    private final int capacity;
+
+    // --- Armazenamento circular dos pontos ---
+    /** Coordenadas dos pontos: o ponto do slot s ocupa [s * dimensions, (s + 1) * dimensions). */
+    private final double[] points;
+    /** Valor associado a cada ponto (ex: o GuessFactor visitado). */
+    private final double[] values;
+    /** Nó da árvore que contém cada slot. */
+    private final int[] pointNode;
+    /** Slot do ponto mais antigo. */
+    private int oldest = 0;
+    /** Quantidade de pontos vivos. */
+    private int size = 0;
+
+    // --- Nós da árvore ---
+    /** Slot do ponto de cada nó, ou -1 se o ponto já foi descartado (lápide). */
+    private final int[] nodePoint;
+    private final int[] nodeLeft;
+    private final int[] nodeRight;
+    /** Dimensão de corte de cada nó. */
+    private final int[] nodeDim;
+    /** Valor de corte de cada nó (guardado à parte porque o slot pode ser reaproveitado). */
+    private final double[] nodeSplit;
+    private int nodeCount = 0;
+    private int root = -1;
+
+    // --- Áreas de trabalho reaproveitadas ---
+    private final int[] stackNode;
+    private final double[] stackBound;
+    private final int[] buildOrder;
+
+    /** Indica se a última busca foi interrompida pelo prazo. */
+    private boolean lastSearchTimedOut = false;
+
+    /**
+     * Construtor da classe KdTree.
+     * @param dimensions O número de atributos de cada ponto.
+     * @param capacity O número máximo de pontos guardados.
+     */
+    public KdTree(int dimensions, int capacity)
+    {
+        this.dimensions = dimensions;
+        this.capacity = capacity;
+        this.points = new double[capacity * dimensions];
+        this.values = new double[capacity];
+        this.pointNode = new int[capacity];
+
+        int maxNodes = capacity * 2;
+        this.nodePoint = new int[maxNodes];
+        this.nodeLeft = new int[maxNodes];
+        this.nodeRight = new int[maxNodes];
+        this.nodeDim = new int[maxNodes];
+        this.nodeSplit = new double[maxNodes];
+
+        this.stackNode = new int[maxNodes];
+        this.stackBound = new double[maxNodes];
+        this.buildOrder = new int[capacity];
+    }
+
+    /**
+     * Insere um ponto. Se a árvore estiver cheia, o ponto mais antigo é descartado.
+     * @param point O array com as coordenadas do ponto.
+     * @param offset A posição da primeira coordenada em point.
+     * @param value O valor associado ao ponto.
+     */
+    public void add(double[] point, int offset, double value)
+    {
+        int slot;
+        if(size == capacity)
+        {
+            slot = oldest;
+            nodePoint[pointNode[slot]] = -1; // vira lápide
+            oldest = (oldest + 1) % capacity;
+        }
+        else
+        {
+            slot = (oldest + size) % capacity;
+            size++;
+        }
+
+        System.arraycopy(point, offset, points, slot * dimensions, dimensions);
+        values[slot] = value;
+
+        if(nodeCount == nodePoint.length)
+        {
+            rebuild(slot);
+        }
+        insert(slot);
+    }
+
+    /**
+     * Descarta todos os pontos.
+     */
+    public void clear()
+    {
+        oldest = 0;
+        size = 0;
+        nodeCount = 0;
+        root = -1;
+    }
+
+    /**
+     * Procura os k pontos mais próximos de uma consulta.
+     * @param query As coordenadas da consulta.
+     * @param k O número de vizinhos desejados (no máximo o tamanho dos arrays de saída).
+     * @param deadline O instante ({@code System.nanoTime()}) em que a busca deve parar.
+     * @param outSlots Recebe os slots dos vizinhos encontrados.
+     * @param outDistances Recebe as distâncias ao quadrado dos vizinhos.
+     * @return O número de vizinhos encontrados.
+     */
+    public int nearest(double[] query, int k, long deadline, int[] outSlots, double[] outDistances)
+    {
+        lastSearchTimedOut = false;
+        if(root == -1 || k <= 0)
+        {
+            return 0;
+        }
+
+        int found = 0;
+        int sp = 0;
+        int visited = 0;
+        stackNode[sp] = root;
+        stackBound[sp++] = 0;
+
+        while(sp > 0)
+        {
+            int node = stackNode[--sp];
+            double bound = stackBound[sp];
+            if(found == k && bound >= outDistances[0])
+            {
+                continue; // nada nesse ramo pode entrar entre os k melhores
+            }
+            if((++visited & CLOCK_CHECK_MASK) == 0 && System.nanoTime() > deadline)
+            {
+                lastSearchTimedOut = true;
+                break;
+            }
+
+            int slot = nodePoint[node];
+            if(slot != -1)
+            {
+                double distance = distanceSq(query, slot);
+                if(found < k)
+                {
+                    heapPush(outSlots, outDistances, found++, slot, distance);
+                }
+                else if(distance < outDistances[0])
+                {
+                    heapReplaceTop(outSlots, outDistances, found, slot, distance);
+                }
+            }
+
+            double diff = query[nodeDim[node]] - nodeSplit[node];
+            int near = diff < 0 ? nodeLeft[node] : nodeRight[node];
+            int far = diff < 0 ? nodeRight[node] : nodeLeft[node];
+            // O lado oposto é empilhado primeiro para que o lado próximo seja visitado antes.
+            if(far != -1)
+            {
+                stackNode[sp] = far;
+                stackBound[sp++] = Math.max(bound, diff * diff);
+            }
+            if(near != -1)
+            {
+                stackNode[sp] = near;
+                stackBound[sp++] = bound;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Retorna o valor associado a um slot devolvido por {@link #nearest}.
+     * @param slot O slot do ponto.
+     * @return O valor guardado com o ponto.
+     */
+    public double getValue(int slot)
+    {
+        return values[slot];
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public int getDimensions()
+    {
+        return dimensions;
+    }
+
+    /**
+     * @return true se a última chamada de {@link #nearest} foi interrompida pelo prazo.
+     */
+    public boolean lastSearchTimedOut()
+    {
+        return lastSearchTimedOut;
+    }
+
+    /**
+     * Insere o ponto de um slot descendo a árvore até uma folha.
+     */
+    private void insert(int slot)
+    {
+        int node = nodeCount++;
+        nodePoint[node] = slot;
+        nodeLeft[node] = -1;
+        nodeRight[node] = -1;
+        pointNode[slot] = node;
+
+        if(root == -1)
+        {
+            root = node;
+            nodeDim[node] = 0;
+            nodeSplit[node] = points[slot * dimensions];
+            return;
+        }
+
+        int current = root;
+        while(true)
+        {
+            boolean left = points[slot * dimensions + nodeDim[current]] < nodeSplit[current];
+            int next = left ? nodeLeft[current] : nodeRight[current];
+            if(next == -1)
+            {
+                if(left)
+                {
+                    nodeLeft[current] = node;
+                }
+                else
+                {
+                    nodeRight[current] = node;
+                }
+                nodeDim[node] = (nodeDim[current] + 1) % dimensions;
+                nodeSplit[node] = points[slot * dimensions + nodeDim[node]];
+                return;
+            }
+            current = next;
+        }
+    }
+
+    /**
+     * Reconstrói a árvore balanceada apenas com os pontos vivos, descartando as lápides.
+     * @param skipSlot Slot recém-escrito que ainda não está na árvore.
+     */
+    private void rebuild(int skipSlot)
+    {
+        int count = 0;
+        for(int i = 0; i < size; i++)
+        {
+            int slot = (oldest + i) % capacity;
+            if(slot != skipSlot)
+            {
+                buildOrder[count++] = slot;
+            }
+        }
+        nodeCount = 0;
+        root = build(0, count, 0);
+    }
+
+    /**
+     * Constrói recursivamente a subárvore com os slots de buildOrder[from, to),
+     * usando a mediana da dimensão de corte como raiz.
+     */
+    private int build(int from, int to, int dim)
+    {
+        if(from >= to)
+        {
+            return -1;
+        }
+        int mid = (from + to) >>> 1;
+        select(from, to - 1, mid, dim);
+
+        int slot = buildOrder[mid];
+        int node = nodeCount++;
+        nodePoint[node] = slot;
+        nodeDim[node] = dim;
+        nodeSplit[node] = points[slot * dimensions + dim];
+        pointNode[slot] = node;
+
+        int nextDim = (dim + 1) % dimensions;
+        nodeLeft[node] = build(from, mid, nextDim);
+        nodeRight[node] = build(mid + 1, to, nextDim);
+        return node;
+    }
+
+    /**
+     * Quickselect: deixa em buildOrder[k] o slot que estaria nessa posição se o
+     * intervalo estivesse ordenado pela dimensão dada, com os menores à esquerda.
+     */
+    private void select(int left, int right, int k, int dim)
+    {
+        while(left < right)
+        {
+            double pivot = points[buildOrder[(left + right) >>> 1] * dimensions + dim];
+            int i = left;
+            int j = right;
+            while(i <= j)
+            {
+                while(points[buildOrder[i] * dimensions + dim] < pivot) i++;
+                while(points[buildOrder[j] * dimensions + dim] > pivot) j--;
+                if(i <= j)
+                {
+                    int tmp = buildOrder[i];
+                    buildOrder[i++] = buildOrder[j];
+                    buildOrder[j--] = tmp;
+                }
+            }
+            if(k <= j)
+            {
+                right = j;
+            }
+            else if(k >= i)
+            {
+                left = i;
+            }
+            else
+            {
+                return;
+            }
+        }
+    }
+
+    private double distanceSq(double[] query, int slot)
+    {
+        int base = slot * dimensions;
+        double sum = 0;
+        for(int d = 0; d < dimensions; d++)
+        {
+            double diff = query[d] - points[base + d];
+            sum += diff * diff;
+        }
+        return sum;
+    }
+
+    // --- Max-heap dos k melhores (a raiz é o pior dos melhores) ---
+
+    private static void heapPush(int[] slots, double[] dist, int size, int slot, double distance)
+    {
+        int i = size;
+        while(i > 0)
+        {
+            int parent = (i - 1) >> 1;
+            if(dist[parent] >= distance)
+            {
+                break;
+            }
+            slots[i] = slots[parent];
+            dist[i] = dist[parent];
+            i = parent;
+        }
+        slots[i] = slot;
+        dist[i] = distance;
+    }
+
+    private static void heapReplaceTop(int[] slots, double[] dist, int size, int slot, double distance)
+    {
+        int i = 0;
+        while(true)
+        {
+            int child = 2 * i + 1;
+            if(child >= size)
+            {
+                break;
+            }
+            if(child + 1 < size && dist[child + 1] > dist[child])
+            {
+                child++;
+            }
+            if(dist[child] <= distance)
+            {
+                break;
+            }
+            slots[i] = slots[child];
+            dist[i] = dist[child];
+            i = child;
+        }
+        slots[i] = slot;
+        dist[i] = distance;
+    }
+}
@@ -0,0 +1,44 @@
+package killBot.gun;
+
+import killBot.data.BotState;
+import killBot.data.GameData;
+import robocode.AdvancedRobot;
+
+/**
+ * Mira preditiva linear: supõe que o inimigo mantém velocidade e direção atuais.
+ * A interceptação é resolvida em forma fechada por {@link PredictiveTargeting}.
+ */
+public class LinearGun implements VirtualGun {
+
+    /** Referência ao robô principal para obter as dimensões do campo. */
+    private AdvancedRobot robot;
+    /** Objeto que contém todos os dados de estado do jogo. */
+    private GameData gameData;
+
+    /**
+     * Construtor da classe LinearGun.
+     * @param robot A instância do robô principal.
+     * @param gameData O objeto de dados do jogo.
+     */
+    public LinearGun(AdvancedRobot robot, GameData gameData)
+    {
+        this.robot = robot;
+        this.gameData = gameData;
+    }
+
+    @Override
+    public double aim(double bulletPower)
+    {
+        BotState enemy = gameData.enemyState;
+        return PredictiveTargeting.linearIntercept(
+            gameData.myState.location.x, gameData.myState.location.y,
+            enemy.location.x, enemy.location.y, enemy.heading, enemy.velocity,
+            20 - (3 * bulletPower), robot.getBattleFieldWidth(), robot.getBattleFieldHeight());
+    }
+
+    @Override
+    public String getName()
+    {
+        return "Linear";
+    }
+}
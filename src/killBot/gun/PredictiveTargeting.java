@@ -0,0 +1,143 @@
+package killBot.gun;
+
+import killBot.utils.math.FasterCalcs;
+
+/**
+ * Cálculos de mira preditiva usados pelas miras linear e circular.
+ * Todos os métodos são estáticos, não alocam memória e têm custo limitado:
+ * a interceptação linear é resolvida em forma fechada (equação do segundo grau)
+ * e a circular simula no máximo {@link #MAX_TICKS} turnos.
+ *
+ * Nos dois casos o inimigo é mantido dentro do campo: ao encostar na parede,
+ * ele para ali (como no Robocode), em vez de a previsão ser abandonada.
+ */
+public final class PredictiveTargeting {
+
+    /** Limite de turnos simulados na mira circular. */
+    public static final int MAX_TICKS = 100;
+    /** Meia largura do robô: o centro nunca chega mais perto da parede que isso. */
+    private static final double HALF_BOT = 18;
+    /** Abaixo desta taxa de giro (rad/turno) a mira circular usa a solução linear. */
+    private static final double MIN_TURN_RATE = 1e-4;
+
+    private PredictiveTargeting() {
+    }
+
+    /**
+     * Calcula o ângulo de tiro para interceptar um alvo em movimento retilíneo
+     * uniforme. Resolve |d + v.t| = s.t, onde d é a posição relativa do alvo, v a
+     * sua velocidade e s a velocidade da bala. Como a bala (11 a 19.7) é sempre
+     * mais rápida que o robô (8), sempre há exatamente uma raiz positiva.
+     * Se o alvo encostar na parede antes da interceptação, mira no ponto da parede.
+     *
+     * @param shooterX Posição x de quem atira.
+     * @param shooterY Posição y de quem atira.
+     * @param targetX Posição x do alvo.
+     * @param targetY Posição y do alvo.
+     * @param heading Direção do alvo (radianos, padrão do Robocode).
+     * @param velocity Velocidade do alvo (negativa se estiver de ré).
+     * @param bulletSpeed Velocidade da bala.
+     * @param fieldWidth Largura do campo.
+     * @param fieldHeight Altura do campo.
+     * @return O ângulo absoluto do tiro.
+     */
+    public static double linearIntercept(double shooterX, double shooterY, double targetX, double targetY,
+            double heading, double velocity, double bulletSpeed, double fieldWidth, double fieldHeight)
+    {
+        double vx = velocity * FasterCalcs.sin(heading);
+        double vy = velocity * FasterCalcs.cos(heading);
+        double dx = targetX - shooterX;
+        double dy = targetY - shooterY;
+
+        // (v.v - s^2) t^2 + 2 (d.v) t + d.d = 0, com a < 0.
+        double a = vx * vx + vy * vy - bulletSpeed * bulletSpeed;
+        double b = 2 * (dx * vx + dy * vy);
+        double c = dx * dx + dy * dy;
+        double discriminant = b * b - 4 * a * c;
+        double t = (-b - Math.sqrt(Math.max(0, discriminant))) / (2 * a);
+
+        // Tempo até o alvo encostar na parede, em cada eixo.
+        double wallTime = Math.min(timeToWall(targetX, vx, fieldWidth), timeToWall(targetY, vy, fieldHeight));
+        if(t > wallTime)
+        {
+            t = wallTime; // o alvo para na parede e fica esperando a bala
+        }
+
+        return FasterCalcs.atan2(dx + vx * t, dy + vy * t);
+    }
+
+    /**
+     * Calcula o ângulo de tiro supondo que o alvo mantém a velocidade e a taxa de
+     * giro atuais. O alvo é simulado turno a turno, limitado às paredes a cada
+     * turno, até a bala alcançá-lo ou {@link #MAX_TICKS} turnos.
+     *
+     * @param shooterX Posição x de quem atira.
+     * @param shooterY Posição y de quem atira.
+     * @param targetX Posição x do alvo.
+     * @param targetY Posição y do alvo.
+     * @param heading Direção do alvo (radianos).
+     * @param velocity Velocidade do alvo.
+     * @param turnRate Variação da direção do alvo por turno (radianos).
+     * @param bulletSpeed Velocidade da bala.
+     * @param fieldWidth Largura do campo.
+     * @param fieldHeight Altura do campo.
+     * @return O ângulo absoluto do tiro.
+     */
+    public static double circularIntercept(double shooterX, double shooterY, double targetX, double targetY,
+            double heading, double velocity, double turnRate, double bulletSpeed, double fieldWidth, double fieldHeight)
+    {
+        if(Math.abs(turnRate) < MIN_TURN_RATE)
+        {
+            return linearIntercept(shooterX, shooterY, targetX, targetY, heading, velocity, bulletSpeed,
+                fieldWidth, fieldHeight);
+        }
+
+        double maxX = fieldWidth - HALF_BOT;
+        double maxY = fieldHeight - HALF_BOT;
+        double x = targetX;
+        double y = targetY;
+
+        // A direção gira sempre do mesmo ângulo, então seno e cosseno são
+        // atualizados por rotação em vez de recalculados a cada turno.
+        double sinTurn = Math.sin(turnRate);
+        double cosTurn = Math.cos(turnRate);
+        double sinHeading = Math.sin(heading);
+        double cosHeading = Math.cos(heading);
+
+        for(int t = 1; t <= MAX_TICKS; t++)
+        {
+            double nextSin = sinHeading * cosTurn + cosHeading * sinTurn;
+            cosHeading = cosHeading * cosTurn - sinHeading * sinTurn;
+            sinHeading = nextSin;
+            x = Math.max(HALF_BOT, Math.min(maxX, x + velocity * sinHeading));
+            y = Math.max(HALF_BOT, Math.min(maxY, y + velocity * cosHeading));
+
+            double dx = x - shooterX;
+            double dy = y - shooterY;
+            double travelled = t * bulletSpeed;
+            if(travelled * travelled >= dx * dx + dy * dy)
+            {
+                break;
+            }
+        }
+
+        return FasterCalcs.atan2(x - shooterX, y - shooterY);
+    }
+
+    /**
+     * Tempo até uma coordenada, andando com a velocidade dada, encostar na parede.
+     * @return O tempo, ou infinito se a velocidade no eixo for nula.
+     */
+    private static double timeToWall(double position, double speed, double size)
+    {
+        if(speed > 0)
+        {
+            return Math.max(0, (size - HALF_BOT - position) / speed);
+        }
+        if(speed < 0)
+        {
+            return Math.max(0, (HALF_BOT - position) / speed);
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+}
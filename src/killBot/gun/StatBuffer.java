@@ -0,0 +1,335 @@
+package killBot.gun;
+
+import java.util.Arrays;
+
+/**
+ * Buffer de estatísticas "achatado" (flat) usado pela mira GuessFactor.
+ * Todos os segmentos ficam em um único array primitivo, indexado por stride:
+ * o bin {@code b} do segmento {@code s} mora em {@code s * bins + b}.
+ *
+ * O decaimento é global e preguiçoso: em vez de multiplicar cada célula a cada
+ * turno, guardamos um fator de escala comum ("época"). O valor real de uma célula
+ * é {@code data[i] * scale}. Decair custa O(1); as células só são reescaladas
+ * quando a escala fica pequena demais e ameaça a precisão do double.
+ *
+ * Cada amostra pode ser espalhada pelos bins vizinhos com um kernel gaussiano
+ * ({@link #addSmoothed}), e a melhor janela de cada segmento fica em cache: a
+ * procura só é refeita quando o segmento recebe uma nova amostra. As larguras de
+ * janela são arredondadas para um conjunto pequeno e fixo ({@link #WINDOW_SIZES}),
+ * com um cache por largura, para que a largura mudar a cada turno (ela depende da
+ * distância) não esvazie o cache. Como o decaimento é uma escala comum, ele nunca
+ * muda a ordem dos bins nem invalida o cache.
+ *
+ * O buffer pode ter várias camadas com a mesma segmentação e decaimentos
+ * diferentes (ex: a mira principal e a anti-surfista). As camadas ficam no
+ * mesmo array, uma depois da outra, e cada uma tem a sua própria escala.
+ */
+public class StatBuffer {
+
+    /** Abaixo desta escala os valores brutos são normalizados para evitar overflow. */
+    private static final double MIN_SCALE = 1e-100;
+    /** Meias janelas aceitas por {@link #bestWindow}; as outras são arredondadas para baixo. */
+    private static final int[] WINDOW_SIZES = { 0, 1, 2, 3, 4, 6, 8, 11, 16, 23 };
+
+    /** Valores brutos (sem a escala aplicada). */
+    private final double[] data;
+    /** Número de segmentos de cada camada. */
+    private final int segments;
+    /** Número de bins por segmento (o stride). */
+    private final int bins;
+    /** Número de células de cada camada. */
+    private final int layerSize;
+    /** Fator multiplicado a cada chamada de {@link #decay()}, por camada. */
+    private final double[] decayRate;
+    /** Escala atual de cada camada; valor real = bruto * escala. */
+    private final double[] scale;
+
+    /** Pesos do kernel: kernel[d] é o peso do bin a d posições do centro. */
+    private double[] kernel = { 1.0 };
+
+    /** Melhor bin em cache: o segmento s e a largura w ficam em s * WINDOW_SIZES.length + w. */
+    private final int[] cachedBest;
+    /** Larguras com cache válido em cada segmento (um bit por largura; 0 = cache sujo). */
+    private final int[] cachedWindows;
+    /** Índice em WINDOW_SIZES de cada meia janela possível (0 até bins - 1). */
+    private final int[] windowClass;
+
+    /**
+     * Construtor da classe StatBuffer, com uma única camada.
+     * @param segments O número de segmentos (combinações de atributos).
+     * @param bins O número de bins por segmento.
+     * @param decayRate O fator de decaimento aplicado por turno (ex: 0.999).
+     */
+    public StatBuffer(int segments, int bins, double decayRate)
+    {
+        this(segments, bins, new double[] { decayRate });
+    }
+
+    /**
+     * Construtor da classe StatBuffer, com uma camada por fator de decaimento.
+     * @param segments O número de segmentos de cada camada.
+     * @param bins O número de bins por segmento.
+     * @param layerDecayRates O fator de decaimento por turno de cada camada.
+     */
+    public StatBuffer(int segments, int bins, double[] layerDecayRates)
+    {
+        int layers = layerDecayRates.length;
+        this.segments = segments;
+        this.bins = bins;
+        this.layerSize = segments * bins;
+        this.decayRate = layerDecayRates.clone();
+        this.scale = new double[layers];
+        Arrays.fill(scale, 1.0);
+        this.data = new double[layers * layerSize];
+        this.cachedBest = new int[layers * segments * WINDOW_SIZES.length];
+        this.cachedWindows = new int[layers * segments];
+        this.windowClass = new int[bins];
+        for(int halfWindow = 0, w = 0; halfWindow < bins; halfWindow++)
+        {
+            while(w + 1 < WINDOW_SIZES.length && WINDOW_SIZES[w + 1] <= halfWindow) w++;
+            windowClass[halfWindow] = w;
+        }
+    }
+
+    /**
+     * Define a largura do kernel usado por {@link #addSmoothed}.
+     * O kernel é gaussiano e cortado em duas larguras e meia de cada lado.
+     * @param bandwidth O desvio padrão do kernel, em bins (0 = sem suavização).
+     */
+    public void setKernelBandwidth(double bandwidth)
+    {
+        if(bandwidth <= 0)
+        {
+            kernel = new double[] { 1.0 };
+            return;
+        }
+        int radius = (int) Math.ceil(2.5 * bandwidth);
+        kernel = new double[radius + 1];
+        for(int d = 0; d <= radius; d++)
+        {
+            double u = d / bandwidth;
+            kernel[d] = Math.exp(-0.5 * u * u);
+        }
+    }
+
+    /**
+     * Retorna o deslocamento do primeiro bin de um segmento no array.
+     * Segmentos além do número de segmentos de uma camada caem nas camadas seguintes.
+     * @param segment O índice do segmento.
+     * @return O índice do bin 0 desse segmento.
+     */
+    public int offset(int segment)
+    {
+        return segment * bins;
+    }
+
+    /**
+     * Retorna o deslocamento do primeiro bin de um segmento de uma camada.
+     * @param layer O índice da camada.
+     * @param segment O índice do segmento dentro da camada.
+     * @return O índice do bin 0 desse segmento.
+     */
+    public int offset(int layer, int segment)
+    {
+        return layer * layerSize + segment * bins;
+    }
+
+    /**
+     * Converte um deslocamento da camada 0 no deslocamento equivalente de outra camada.
+     * @param offset O deslocamento de um segmento da camada 0.
+     * @param layer O índice da camada desejada.
+     * @return O deslocamento do mesmo segmento na camada pedida.
+     */
+    public int toLayer(int offset, int layer)
+    {
+        return offset % layerSize + layer * layerSize;
+    }
+
+    /**
+     * Aplica o decaimento de todas as camadas em O(1) por camada.
+     */
+    public void decay()
+    {
+        for(int layer = 0; layer < scale.length; layer++)
+        {
+            scale[layer] *= decayRate[layer];
+            if(scale[layer] < MIN_SCALE)
+            {
+                normalize(layer);
+            }
+        }
+    }
+
+    /**
+     * Soma um valor (já na escala real) a um bin.
+     * @param offset O deslocamento do segmento, vindo de {@link #offset(int)}.
+     * @param bin O índice do bin dentro do segmento.
+     * @param value O valor real a ser somado.
+     */
+    public void add(int offset, int bin, double value)
+    {
+        data[offset + bin] += value / scale[offset / layerSize];
+        cachedWindows[offset / bins] = 0;
+    }
+
+    /**
+     * Soma um valor a um bin e aos seus vizinhos, ponderado pelo kernel.
+     * O bin central recebe o valor inteiro; os vizinhos fora do segmento são ignorados.
+     * @param offset O deslocamento do segmento, vindo de {@link #offset(int)}.
+     * @param bin O índice do bin central.
+     * @param value O valor real somado ao bin central.
+     */
+    public void addSmoothed(int offset, int bin, double value)
+    {
+        double raw = value / scale[offset / layerSize];
+        int from = Math.max(0, bin - kernel.length + 1);
+        int to = Math.min(bins - 1, bin + kernel.length - 1);
+        for(int i = from; i <= to; i++)
+        {
+            data[offset + i] += raw * kernel[Math.abs(i - bin)];
+        }
+        cachedWindows[offset / bins] = 0;
+    }
+
+    /**
+     * Retorna o valor real de um bin.
+     * @param offset O deslocamento do segmento.
+     * @param bin O índice do bin.
+     * @return O valor com o decaimento aplicado.
+     */
+    public double get(int offset, int bin)
+    {
+        return data[offset + bin] * scale[offset / layerSize];
+    }
+
+    /**
+     * Retorna o valor real de uma célula pelo índice absoluto no buffer.
+     * @param index O índice absoluto (0 até {@link #size()} - 1).
+     * @return O valor com o decaimento aplicado.
+     */
+    public double getValue(int index)
+    {
+        return data[index] * scale[index / layerSize];
+    }
+
+    /**
+     * Sobrescreve o valor real de uma célula pelo índice absoluto no buffer.
+     * @param index O índice absoluto.
+     * @param value O novo valor real.
+     */
+    public void setValue(int index, double value)
+    {
+        data[index] = value / scale[index / layerSize];
+        cachedWindows[index / bins] = 0;
+    }
+
+    /**
+     * Zera todas as células e a escala.
+     */
+    public void clear()
+    {
+        Arrays.fill(data, 0.0);
+        Arrays.fill(cachedWindows, 0);
+        Arrays.fill(scale, 1.0);
+    }
+
+    /**
+     * Procura o bin de maior valor em um segmento.
+     * @param offset O deslocamento do segmento.
+     * @param defaultBin O bin retornado em caso de empate com o padrão (ex: GF 0).
+     * @return O índice do melhor bin.
+     */
+    public int bestBin(int offset, int defaultBin)
+    {
+        return bestWindow(offset, defaultBin, 0);
+    }
+
+    /**
+     * Procura o centro da janela de bins com a maior soma em um segmento.
+     * A janela representa a largura angular do alvo: qualquer ponto dentro dela
+     * ainda acertaria o inimigo. A meia janela é arredondada para baixo até uma
+     * das {@link #WINDOW_SIZES}, e o resultado de cada uma fica em cache até o
+     * segmento receber uma nova amostra, então a leitura normal custa O(1).
+     * Como a escala é comum a todas as células da camada, a comparação usa os valores brutos.
+     * @param offset O deslocamento do segmento.
+     * @param defaultBin O bin retornado em caso de empate com o padrão (ex: GF 0).
+     * @param halfWindow Quantos bins de cada lado do centro entram na janela.
+     * @return O índice do bin central da melhor janela.
+     */
+    public int bestWindow(int offset, int defaultBin, int halfWindow)
+    {
+        int segment = offset / bins;
+        int w = windowClass[Math.max(0, Math.min(bins - 1, halfWindow))];
+        int cacheIndex = segment * WINDOW_SIZES.length + w;
+        if((cachedWindows[segment] & (1 << w)) != 0)
+        {
+            return cachedBest[cacheIndex];
+        }
+        halfWindow = WINDOW_SIZES[w];
+
+        // Soma da janela centrada no bin 0, deslizada um bin por vez.
+        double sum = 0;
+        for(int i = 0; i <= halfWindow && i < bins; i++)
+        {
+            sum += data[offset + i];
+        }
+        int best = defaultBin;
+        double bestValue = -1;
+        for(int center = 0; center < bins; center++)
+        {
+            if(center > 0)
+            {
+                int enter = center + halfWindow;
+                int leave = center - halfWindow - 1;
+                if(enter < bins) sum += data[offset + enter];
+                if(leave >= 0) sum -= data[offset + leave];
+            }
+            if(sum > bestValue || (sum == bestValue && center == defaultBin))
+            {
+                bestValue = sum;
+                best = center;
+            }
+        }
+
+        cachedBest[cacheIndex] = best;
+        cachedWindows[segment] |= 1 << w;
+        return best;
+    }
+
+    /**
+     * Aplica a escala acumulada em todas as células de uma camada e volta a escala para 1.
+     * Só é chamado quando a escala se aproxima do limite de precisão.
+     */
+    private void normalize(int layer)
+    {
+        int start = layer * layerSize;
+        for(int i = start; i < start + layerSize; i++)
+        {
+            data[i] *= scale[layer];
+        }
+        scale[layer] = 1.0;
+    }
+
+    public int size()
+    {
+        return data.length;
+    }
+
+    /**
+     * @return O número total de segmentos, somando todas as camadas.
+     */
+    public int getSegments()
+    {
+        return segments * scale.length;
+    }
+
+    public int getLayers()
+    {
+        return scale.length;
+    }
+
+    public int getBins()
+    {
+        return bins;
+    }
+}
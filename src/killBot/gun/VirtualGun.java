@@ -0,0 +1,22 @@
+package killBot.gun;
+
+/**
+ * Uma mira "virtual": todo turno ela sugere um ângulo de tiro, mesmo quando não é
+ * ela quem dispara. As ondas compartilhadas do {@link WaveManager} verificam, ao
+ * passar pelo inimigo, quais miras teriam acertado, e o {@link VirtualGunArray}
+ * escolhe a melhor para o tiro real.
+ */
+public interface VirtualGun {
+
+    /**
+     * Calcula o ângulo absoluto (em radianos) para onde esta mira atiraria agora.
+     * @param bulletPower A potência do tiro que será disparado.
+     * @return O ângulo absoluto do tiro.
+     */
+    double aim(double bulletPower);
+
+    /**
+     * @return Um nome curto para identificar a mira nos logs.
+     */
+    String getName();
+}
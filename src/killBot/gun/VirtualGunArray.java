@@ -0,0 +1,145 @@
+package killBot.gun;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import robocode.util.Utils;
+
+/**
+ * Conjunto de miras virtuais avaliadas em paralelo.
+ * Todo turno cada mira sugere um ângulo; os ângulos vão junto com a onda do
+ * turno. Quando a onda passa pelo inimigo, uma única verificação por mira
+ * (uma subtração e uma comparação) diz quem teria acertado. Cada mira guarda uma
+ * pontuação com decaimento, e a de maior pontuação dispara a bala real.
+ */
+public class VirtualGunArray {
+
+    /** Número máximo de miras suportadas (define o stride dos ângulos nas ondas). */
+    public static final int MAX_GUNS = 10;
+    /** Decaimento da pontuação por onda verificada (~100 ondas de memória). */
+    public static final double SCORE_DECAY = 0.99;
+
+    /**
+     * Pontuações de cada mira, pela ordem de registro. São estáticas para
+     * sobreviverem entre rounds, como as estatísticas de mira.
+     */
+    private static final double[] SCORES = new double[MAX_GUNS];
+
+    /** As miras registradas. */
+    private final VirtualGun[] guns = new VirtualGun[MAX_GUNS];
+    /** Quantidade de miras registradas. */
+    private int gunCount = 0;
+
+    /**
+     * Registra uma nova mira.
+     * @param gun A mira.
+     * @return O índice da mira no conjunto.
+     */
+    public int addGun(VirtualGun gun)
+    {
+        if(gunCount == MAX_GUNS)
+        {
+            throw new IllegalStateException("Limite de miras virtuais atingido: " + MAX_GUNS);
+        }
+        guns[gunCount] = gun;
+        return gunCount++;
+    }
+
+    /**
+     * Pede o ângulo de todas as miras.
+     * @param bulletPower A potência do tiro.
+     * @param out Recebe os ângulos, um por mira, na ordem de registro.
+     */
+    public void aimAll(double bulletPower, double[] out)
+    {
+        for(int i = 0; i < gunCount; i++)
+        {
+            out[i] = guns[i].aim(bulletPower);
+        }
+    }
+
+    /**
+     * Atualiza as pontuações com uma onda que acabou de passar pelo inimigo.
+     * @param angles O array com os ângulos que cada mira sugeriu para a onda.
+     * @param offset A posição do ângulo da primeira mira em angles.
+     * @param bearingToEnemy O ângulo, a partir da origem da onda, em que o inimigo foi alcançado.
+     * @param tolerance O meio-ângulo ocupado pelo inimigo visto da origem da onda.
+     */
+    public void scoreWave(double[] angles, int offset, double bearingToEnemy, double tolerance)
+    {
+        for(int i = 0; i < gunCount; i++)
+        {
+            boolean hit = Math.abs(Utils.normalRelativeAngle(angles[offset + i] - bearingToEnemy)) <= tolerance;
+            SCORES[i] = SCORES[i] * SCORE_DECAY + (hit ? 1 : 0);
+        }
+    }
+
+    /**
+     * @return O índice da mira de maior pontuação (a primeira em caso de empate).
+     */
+    public int getBestGun()
+    {
+        int best = 0;
+        for(int i = 1; i < gunCount; i++)
+        {
+            if(SCORES[i] > SCORES[best])
+            {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    public int getGunCount()
+    {
+        return gunCount;
+    }
+
+    public VirtualGun getGun(int index)
+    {
+        return guns[index];
+    }
+
+    public static double getScore(int index)
+    {
+        return SCORES[index];
+    }
+
+    /**
+     * Zera as pontuações (troca de oponente).
+     */
+    public static void clearScores()
+    {
+        Arrays.fill(SCORES, 0.0);
+    }
+
+    /**
+     * Grava as pontuações no perfil do oponente.
+     */
+    public static void saveScores(DataOutputStream out) throws IOException
+    {
+        out.writeByte(MAX_GUNS);
+        for(double score : SCORES)
+        {
+            out.writeFloat((float) score);
+        }
+    }
+
+    /**
+     * Lê as pontuações gravadas por {@link #saveScores}. Se o número de miras
+     * mudou, as pontuações gravadas são ignoradas.
+     */
+    public static void loadScores(DataInputStream in) throws IOException
+    {
+        if(in.readUnsignedByte() != MAX_GUNS)
+        {
+            return;
+        }
+        for(int i = 0; i < MAX_GUNS; i++)
+        {
+            SCORES[i] = in.readFloat();
+        }
+    }
+}
@@ -3,83 +3,448 @@ package killBot.gun;
 import killBot.data.*;
 import killBot.utils.math.FasterCalcs;
 import robocode.AdvancedRobot;
+import robocode.Bullet;
+import robocode.util.Utils;
 import java.awt.geom.Point2D;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Iterator;
+import java.util.Arrays;
 
 /**
  * Gerencia as "ondas de tiro" (bullet waves) que se originam do nosso próprio robô.
- * Esta classe é fundamental para o funcionamento da mira GuessFactor. Quando um
- * tiro nosso atinge o inimigo, este gerenciador nos ajuda a identificar qual foi
- * o tiro exato, permitindo-nos calcular o GuessFactor daquele acerto e aprender com ele.
+ * Esta classe é fundamental para o funcionamento da mira GuessFactor. Uma onda é
+ * emitida a cada turno: reais quando atiramos, virtuais quando não atiramos. Cada
+ * onda guarda o contexto do momento do disparo e, quando seu raio alcança o
+ * inimigo, o GuessFactor visitado é registrado nas estatísticas. Quando um tiro
+ * nosso atinge o inimigo, este gerenciador também identifica qual foi o tiro exato.
+ *
+ * As ondas ficam em arrays primitivos pré-alocados (uma "struct of arrays"), com
+ * uma lista de slots livres: criar e descartar ondas não aloca memória. Os slots
+ * em uso ficam compactados em {@code active}, e a remoção troca o slot removido
+ * pelo último da lista.
+ *
+ * Cada onda real fica associada, no momento do tiro, à {@link Bullet} devolvida
+ * por {@code setFireBullet()}. Os eventos de bala resolvem a onda certa em tempo
+ * constante por uma tabela hash pré-alocada de slots (endereçamento aberto,
+ * indexada pelo {@code hashCode()} da bala, que no Robocode é o id interno), sem
+ * alocar nada por tiro; a busca geométrica por potência e raio ficou apenas como
+ * alternativa. A onda guarda também o número do tiro no {@link HitRateTracker},
+ * que é resolvido pelo mesmo evento.
  */
 public class WaveManager {
-    
-    /** Uma lista que armazena todas as ondas de tiro ativas que nosso robô disparou. */
-    private List<Wave> waves = new ArrayList<>();
+
+    /** Peso de uma onda real nas estatísticas do BINS. */
+    public static final double REAL_WAVE_WEIGHT = 1.0;
+    /** Peso de uma onda virtual (sem bala) nas estatísticas do BINS. */
+    public static final double VIRTUAL_WAVE_WEIGHT = 0.2;
+    /**
+     * Número máximo de ondas simultâneas. Uma onda vive no máximo até percorrer
+     * MAX_RADIUS (1000 / 11 ≈ 91 turnos na bala mais lenta), e emitimos uma por turno.
+     */
+    public static final int MAX_WAVES = 128;
+    /** Raio a partir do qual a onda é descartada (provavelmente saiu do campo). */
+    private static final double MAX_RADIUS = 1000;
+    /** Margem após o inimigo até a onda real ser descartada (para casar com onBulletHit). */
+    private static final double PASS_MARGIN = 50;
+
+    // --- Dados das ondas, indexados pelo slot ---
+    private final double[] originX = new double[MAX_WAVES];
+    private final double[] originY = new double[MAX_WAVES];
+    private final double[] bulletPower = new double[MAX_WAVES];
+    private final double[] bulletSpeed = new double[MAX_WAVES];
+    private final long[] fireTime = new long[MAX_WAVES];
+    private final int[] direction = new int[MAX_WAVES];
+    private final double[] absoluteBearing = new double[MAX_WAVES];
+    /** Ângulos de escape precisos no momento do tiro, no sentido horário e anti-horário. */
+    private final double[] escapeClockwise = new double[MAX_WAVES];
+    private final double[] escapeCounterClockwise = new double[MAX_WAVES];
+    /** Deslocamento do segmento do BINS no momento do tiro. */
+    private final int[] segment = new int[MAX_WAVES];
+    /** Atributos do momento do tiro: o slot s ocupa [s * DIMENSIONS, (s + 1) * DIMENSIONS). */
+    private final double[] features = new double[MAX_WAVES * DynamicClusteringGun.DIMENSIONS];
+    private final boolean[] real = new boolean[MAX_WAVES];
+    private final boolean[] visited = new boolean[MAX_WAVES];
+    /**
+     * Primeiro turno em que a onda pode ter alcançado o inimigo. Calculado na criação
+     * supondo que o inimigo venha em nossa direção na velocidade máxima; antes dele
+     * a onda nem é testada.
+     */
+    private final long[] passTime = new long[MAX_WAVES];
+
+    /** Ângulos sugeridos pelas miras virtuais: o slot s ocupa [s * MAX_GUNS, (s + 1) * MAX_GUNS). */
+    private final double[] gunAngles = new double[MAX_WAVES * VirtualGunArray.MAX_GUNS];
+    /** Índice da mira que estava no comando no momento do tiro. */
+    private final int[] firingGun = new int[MAX_WAVES];
+
+    /** Bala de cada onda real, ou null se a onda for virtual ou a bala já foi resolvida. */
+    private final Bullet[] bullets = new Bullet[MAX_WAVES];
+    /** Bits do tamanho da tabela bala -> slot (o dobro de MAX_WAVES, para sondagens curtas). */
+    private static final int BULLET_TABLE_BITS = 8;
+    private static final int BULLET_TABLE_MASK = (1 << BULLET_TABLE_BITS) - 1;
+    /** Tabela bala -> slot, com sondagem linear; -1 marca uma posição vazia. */
+    private final int[] bulletTable = new int[1 << BULLET_TABLE_BITS];
+    /** Número do tiro de cada onda real no HitRateTracker, ou -1. */
+    private final int[] shots = new int[MAX_WAVES];
+
+    /** Pilha de slots livres. */
+    private final int[] freeSlots = new int[MAX_WAVES];
+    private int freeCount;
+    /** Slots em uso, compactados no início do array. */
+    private final int[] active = new int[MAX_WAVES];
+    private int activeCount = 0;
+    /** Posição de cada slot dentro de {@code active}, para remover um slot em O(1). */
+    private final int[] activeIndex = new int[MAX_WAVES];
+
+    /** Área de trabalho para o cálculo dos ângulos de escape. */
+    private final double[] escapeAngles = new double[2];
+
     /** Referência ao robô principal para obter dados como o tempo atual. */
     private AdvancedRobot robot;
     /** Objeto que contém os dados de estado do jogo. */
     private GameData gameData;
+    /** Mira de clusterização que aprende com cada onda que passa pelo inimigo. */
+    private DynamicClusteringGun dcGun;
+    /** Miras virtuais pontuadas por cada onda que passa pelo inimigo. */
+    private VirtualGunArray gunArray;
+    /** Taxas de acerto, atualizadas quando o destino de uma bala é conhecido. */
+    private HitRateTracker hitTracker;
 
     /**
      * Construtor da classe WaveManager.
      * @param robot A instância do robô principal.
      * @param gameData O objeto de dados do jogo.
+     * @param dcGun A mira de clusterização que recebe os GuessFactors visitados.
+     * @param gunArray As miras virtuais pontuadas pelas ondas.
+     * @param hitTracker O rastreador que recebe o resultado de cada bala.
      */
-    public WaveManager(AdvancedRobot robot, GameData gameData)
+    public WaveManager(AdvancedRobot robot, GameData gameData, DynamicClusteringGun dcGun, VirtualGunArray gunArray,
+            HitRateTracker hitTracker)
     {
         this.robot = robot;
         this.gameData = gameData;
+        this.dcGun = dcGun;
+        this.gunArray = gunArray;
+        this.hitTracker = hitTracker;
+
+        for(int i = 0; i < MAX_WAVES; i++)
+        {
+            freeSlots[i] = MAX_WAVES - 1 - i;
+        }
+        freeCount = MAX_WAVES;
+        Arrays.fill(bulletTable, -1);
     }
 
     /**
-     * Cria e adiciona uma nova onda à lista cada vez que nosso robô atira.
+     * Cria e adiciona uma nova onda. Chamado a cada turno, atirando ou não.
      * A onda contém um "snapshot" da situação da batalha no momento do tiro.
-     * @param power A potência do tiro disparado, usada para calcular a velocidade da onda.
+     * @param power A potência do tiro (real ou virtual), usada para calcular a velocidade da onda.
+     * @param segmentOffset O deslocamento do segmento do BINS no momento do tiro.
+     * @param bullet A bala disparada neste turno, ou null se a onda for virtual.
+     * @param shot O número do tiro no HitRateTracker, ou -1 se a onda for virtual.
+     * @param angles Os ângulos sugeridos por cada mira virtual neste turno.
+     * @param gun O índice da mira no comando neste turno, ou -1 se os ângulos não
+     * valem para este turno (a onda não pontua as miras).
+     * @return O slot da onda criada, ou -1 se não houver slot livre.
      */
-    public void addWave(double power)
+    public int addWave(double power, int segmentOffset, Bullet bullet, int shot, double[] angles, int gun)
     {
+        if(freeCount == 0)
+        {
+            return -1;
+        }
+        int slot = freeSlots[--freeCount];
+        activeIndex[slot] = activeCount;
+        active[activeCount++] = slot;
+
         Point2D.Double myLocation = gameData.myState.location;
         Point2D.Double enemyLocation = gameData.enemyState.location;
+        double dx = enemyLocation.x - myLocation.x;
+        double dy = enemyLocation.y - myLocation.y;
 
-        double absoluteBearing = FasterCalcs.atan2(
-            enemyLocation.x - myLocation.x,
-            enemyLocation.y - myLocation.y
-        );
+        // Mesma convenção da mira: inimigo parado conta como direção 1.
+        int enemyDirection = (int) Math.signum(gameData.enemyState.velocity);
+        if(enemyDirection == 0) enemyDirection = 1;
 
-        double enemyDirection = Math.signum(gameData.enemyState.velocity);
-        
-        Wave wave = new Wave(myLocation, power, robot.getTime(), (int) enemyDirection, absoluteBearing);
-        waves.add(wave);
+        long time = robot.getTime();
+        double speed = 20 - (3 * power);
+
+        originX[slot] = myLocation.x;
+        originY[slot] = myLocation.y;
+        bulletPower[slot] = power;
+        bulletSpeed[slot] = speed;
+        fireTime[slot] = time;
+        direction[slot] = enemyDirection;
+        absoluteBearing[slot] = FasterCalcs.atan2(dx, dy);
+        GuessFactorGun.escapeAngles(gameData, power, escapeAngles);
+        escapeClockwise[slot] = escapeAngles[0];
+        escapeCounterClockwise[slot] = escapeAngles[1];
+        segment[slot] = segmentOffset;
+        real[slot] = bullet != null;
+        visited[slot] = false;
+        bullets[slot] = bullet;
+        if(bullet != null)
+        {
+            int position = bulletHome(bullet);
+            while(bulletTable[position] != -1)
+            {
+                position = (position + 1) & BULLET_TABLE_MASK;
+            }
+            bulletTable[position] = slot;
+        }
+        shots[slot] = shot;
+        passTime[slot] = time + (long) (Math.sqrt(dx * dx + dy * dy) / (speed + 8));
+        dcGun.fillFeatures(features, slot * DynamicClusteringGun.DIMENSIONS);
+        if(gun >= 0)
+        {
+            System.arraycopy(angles, 0, gunAngles, slot * VirtualGunArray.MAX_GUNS, gunArray.getGunCount());
+        }
+        firingGun[slot] = gun;
+        return slot;
     }
 
     /**
-     * Método de manutenção chamado a cada turno para limpar ondas antigas da lista.
-     * Remove ondas que já passaram do inimigo ou saíram do campo de batalha para
-     * economizar memória e processamento.
+     * Método de manutenção chamado a cada turno. Percorre todas as ondas ativas uma
+     * única vez: quando o raio de uma onda alcança o inimigo, registra o GuessFactor
+     * visitado no segmento do momento do tiro e na mira de clusterização, e informa
+     * ao {@link BulletPowerSelector} se a mira no comando teria acertado.
+     * Remove ondas que já passaram do inimigo ou saíram do campo de batalha.
+     * As comparações de distância são feitas com valores ao quadrado.
      */
     public void updateWaves()
     {
-        Iterator<Wave> iterator = waves.iterator();
-        while(iterator.hasNext())
+        if(gameData.enemyState == null) return;
+
+        long time = robot.getTime();
+        Point2D.Double enemyLocation = gameData.enemyState.location;
+
+        for(int i = activeCount - 1; i >= 0; i--)
         {
-            Wave wave = iterator.next();
+            int slot = active[i];
+            if(time < passTime[slot])
+            {
+                continue; // a onda ainda não pode ter alcançado o inimigo
+            }
+
+            double radius = bulletSpeed[slot] * (time - fireTime[slot]);
+            double dx = enemyLocation.x - originX[slot];
+            double dy = enemyLocation.y - originY[slot];
+            double distanceSq = dx * dx + dy * dy;
 
-            // Remove a onda se seu raio já ultrapassou a localização do inimigo com uma margem.
-            if(wave.getRadius(robot.getTime()) > wave.origin.distance(gameData.enemyState.location) + 50)
+            if(!visited[slot] && radius * radius >= distanceSq)
             {
-                iterator.remove();
+                double bearing = FasterCalcs.atan2(dx, dy);
+                learn(slot, getGuessFactor(slot, bearing));
+
+                if(firingGun[slot] >= 0)
+                {
+                    // Uma única verificação por mira, na mesma passada.
+                    double tolerance = FasterCalcs.atan(18.0 / Math.sqrt(distanceSq));
+                    gunArray.scoreWave(gunAngles, slot * VirtualGunArray.MAX_GUNS, bearing, tolerance);
+
+                    // Resultado da mira no comando, pelo tempo de voo, para a escolha da potência.
+                    double firedAngle = gunAngles[slot * VirtualGunArray.MAX_GUNS + firingGun[slot]];
+                    BulletPowerSelector.recordOutcome(time - fireTime[slot],
+                        Math.abs(Utils.normalRelativeAngle(firedAngle - bearing)) <= tolerance);
+                }
+
+                // Ondas virtuais não têm bala para ser identificada depois; já podem sair.
+                if(!real[slot])
+                {
+                    removeAt(i);
+                    continue;
+                }
+            }
+
+            // Remove a onda se seu raio já ultrapassou a localização do inimigo com uma margem,
+            // ou se ela viajou uma distância excessiva (provavelmente saiu do campo).
+            double passed = radius - PASS_MARGIN;
+            if((passed > 0 && passed * passed > distanceSq) || radius > MAX_RADIUS)
+            {
+                removeAt(i);
+            }
+        }
+    }
+
+    /**
+     * Chamado quando uma de nossas balas atinge o inimigo. Encontra a onda da bala,
+     * registra o acerto no HitRateTracker e o GuessFactor do ponto de impacto (se a
+     * onda ainda não tinha passado pelo inimigo) e retira a onda.
+     * @param bullet A bala que acertou.
+     * @return O GuessFactor do acerto, ou NaN se a onda não foi encontrada.
+     */
+    public double onBulletHit(Bullet bullet)
+    {
+        int slot = takeBulletSlot(bullet);
+        if(slot == -1)
+        {
+            // Alternativa: busca geométrica por potência e raio.
+            slot = findCorrectWave(new Point2D.Double(bullet.getX(), bullet.getY()), bullet.getPower(), robot.getTime());
+            if(slot == -1)
+            {
+                hitTracker.logShotHit(-1);
+                return Double.NaN;
+            }
+            releaseBullet(slot);
+        }
+        hitTracker.logShotHit(shots[slot]);
+        shots[slot] = -1;
+
+        double guessFactor = getGuessFactor(slot,
+            FasterCalcs.atan2(bullet.getX() - originX[slot], bullet.getY() - originY[slot]));
+        if(!visited[slot])
+        {
+            learn(slot, guessFactor);
+        }
+        retire(slot);
+        return guessFactor;
+    }
+
+    /**
+     * Chamado quando uma de nossas balas some sem acertar o inimigo (errou e bateu
+     * na parede, ou colidiu com outra bala). O erro é registrado no HitRateTracker
+     * e a bala é desassociada da onda; se a onda já passou pelo inimigo ela é
+     * retirada, senão continua ativa para ainda registrar o GuessFactor visitado.
+     * @param bullet A bala que sumiu.
+     */
+    public void onBulletGone(Bullet bullet)
+    {
+        int slot = takeBulletSlot(bullet);
+        if(slot == -1)
+        {
+            return;
+        }
+        hitTracker.logShotMissed(shots[slot]);
+        shots[slot] = -1;
+        if(visited[slot])
+        {
+            retire(slot);
+        }
+    }
+
+    /**
+     * Chamado quando o alvo muda ou morre. As ondas em voo foram emitidas contra o
+     * alvo anterior e não podem aprender nem pontuar as miras com outro robô: as
+     * virtuais são retiradas, e as reais ficam só até o evento da bala resolver o
+     * tiro no HitRateTracker.
+     */
+    public void forgetTarget()
+    {
+        for(int i = activeCount - 1; i >= 0; i--)
+        {
+            int slot = active[i];
+            if(bullets[slot] == null)
+            {
+                removeAt(i);
                 continue;
             }
+            visited[slot] = true;
+            firingGun[slot] = -1;
+        }
+    }
+
+    /**
+     * Registra o GuessFactor visitado de uma onda no BINS (segmento do momento do
+     * tiro) e na mira de clusterização.
+     */
+    private void learn(int slot, double guessFactor)
+    {
+        visited[slot] = true;
+        Aimer.logSuccess(segment[slot], guessFactor, real[slot] ? REAL_WAVE_WEIGHT : VIRTUAL_WAVE_WEIGHT, real[slot]);
+        dcGun.record(features, slot * DynamicClusteringGun.DIMENSIONS, guessFactor);
+    }
+
+    /**
+     * Remove a associação de uma bala com sua onda.
+     * @return O slot da onda da bala, ou -1 se a bala não é conhecida.
+     */
+    private int takeBulletSlot(Bullet bullet)
+    {
+        int position = findBullet(bullet);
+        if(position == -1)
+        {
+            return -1;
+        }
+        int slot = bulletTable[position];
+        removeBulletAt(position);
+        bullets[slot] = null;
+        return slot;
+    }
+
+    /**
+     * Desassocia a bala de um slot, se houver.
+     */
+    private void releaseBullet(int slot)
+    {
+        if(bullets[slot] != null)
+        {
+            removeBulletAt(findBullet(bullets[slot]));
+            bullets[slot] = null;
+        }
+    }
+
+    /**
+     * @return A posição da bala na tabela, ou -1 se ela não está lá.
+     */
+    private int findBullet(Bullet bullet)
+    {
+        for(int position = bulletHome(bullet); bulletTable[position] != -1;
+                position = (position + 1) & BULLET_TABLE_MASK)
+        {
+            if(bullet.equals(bullets[bulletTable[position]]))
+            {
+                return position;
+            }
+        }
+        return -1;
+    }
 
-            // Remove a onda se ela viajou uma distância excessiva (provavelmente saiu do campo).
-            if(wave.getRadius(robot.getTime()) > 1000)
+    /**
+     * Esvazia uma posição da tabela e puxa para trás as entradas seguintes da
+     * mesma sequência de sondagem, para que a busca nunca pare num buraco.
+     */
+    private void removeBulletAt(int position)
+    {
+        int next = position;
+        while(true)
+        {
+            next = (next + 1) & BULLET_TABLE_MASK;
+            int slot = bulletTable[next];
+            if(slot == -1)
             {
-                iterator.remove();
+                break;
+            }
+            int home = bulletHome(bullets[slot]);
+            // A entrada pode ocupar o buraco se sua posição ideal não está entre o buraco e ela.
+            if(((next - home) & BULLET_TABLE_MASK) >= ((next - position) & BULLET_TABLE_MASK))
+            {
+                bulletTable[position] = slot;
+                position = next;
             }
         }
+        bulletTable[position] = -1;
+    }
+
+    /**
+     * Posição ideal de uma bala na tabela (hash multiplicativo do id).
+     */
+    private static int bulletHome(Bullet bullet)
+    {
+        return (bullet.hashCode() * 0x9E3779B9) >>> (32 - BULLET_TABLE_BITS);
+    }
+
+    /**
+     * Calcula o GuessFactor de um ângulo em relação a uma onda, usando o ângulo de
+     * escape preciso do lado (horário ou anti-horário) em que o ângulo está.
+     * @param slot O slot da onda de referência.
+     * @param bearing O ângulo absoluto, a partir da origem da onda, do ponto avaliado
+     * (ex: posição do inimigo ou local de impacto).
+     * @return O GuessFactor, limitado entre -1.0 e 1.0.
+     */
+    public double getGuessFactor(int slot, double bearing)
+    {
+        double offsetAngle = Utils.normalRelativeAngle(bearing - absoluteBearing[slot]);
+        // Um lado bloqueado pela parede tem ângulo ~0: qualquer desvio para lá vira GF ±1.
+        double escapeAngle = Math.max(1e-6, offsetAngle >= 0 ? escapeClockwise[slot] : escapeCounterClockwise[slot]);
+        double guessFactor = offsetAngle / escapeAngle * direction[slot];
+        return Math.max(-1.0, Math.min(1.0, guessFactor));
     }
 
     /**
@@ -88,33 +453,66 @@ public class WaveManager {
      * distância do ponto de impacto, para balas de mesma potência.
      *
      * @param impactLocation O local (x, y) onde a bala atingiu o inimigo.
-     * @param bulletPower A potência da bala que acertou.
+     * @param power A potência da bala que acertou.
      * @param currentTime O tempo de jogo no momento do impacto.
-     * @return O objeto Wave correspondente ao acerto, ou null se nenhuma correspondência for encontrada.
+     * @return O slot da onda correspondente ao acerto, ou -1 se nenhuma correspondência for encontrada.
      */
-    public Wave findCorrectWave(Point2D.Double impactLocation, double bulletPower, long currentTime)
+    public int findCorrectWave(Point2D.Double impactLocation, double power, long currentTime)
     {
-        Wave bestMatch = null;
+        int bestMatch = -1;
         double minDeviation = Double.POSITIVE_INFINITY;
 
-        for(Wave wave : waves)
+        for(int i = 0; i < activeCount; i++)
         {
+            int slot = active[i];
+            // Ondas virtuais não têm bala.
+            if(!real[slot]) continue;
+
             // Compara apenas ondas com a mesma potência de tiro (e, portanto, mesma velocidade).
-            if(Math.abs(wave.bulletPower - bulletPower) < 0.001)
+            if(Math.abs(bulletPower[slot] - power) < 0.001)
             {
-                double travelTime = (currentTime - wave.bulletTime);
-                double waveRadius = travelTime * wave.bulletSpeed;
-                double deviation = Math.abs(waveRadius - wave.origin.distance(impactLocation));
+                double waveRadius = (currentTime - fireTime[slot]) * bulletSpeed[slot];
+                double deviation = Math.abs(waveRadius - impactLocation.distance(originX[slot], originY[slot]));
 
                 // A onda correta é aquela com a menor diferença entre o raio e a distância do impacto.
                 if(deviation < minDeviation)
                 {
                     minDeviation = deviation;
-                    bestMatch = wave;
+                    bestMatch = slot;
                 }
             }
         }
 
         return bestMatch;
     }
-}
\ No newline at end of file
+
+    /**
+     * @return O número de ondas ativas.
+     */
+    public int getActiveCount()
+    {
+        return activeCount;
+    }
+
+    /**
+     * Retira uma onda pelo slot, em O(1).
+     */
+    private void retire(int slot)
+    {
+        removeAt(activeIndex[slot]);
+    }
+
+    /**
+     * Remove a onda na posição i da lista de ativas, devolvendo o slot à lista livre.
+     */
+    private void removeAt(int i)
+    {
+        int slot = active[i];
+        releaseBullet(slot);
+        freeSlots[freeCount++] = slot;
+
+        int last = active[--activeCount];
+        active[i] = last;
+        activeIndex[last] = i;
+    }
+}
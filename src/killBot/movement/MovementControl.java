@@ -5,8 +5,10 @@ import static robocode.util.Utils.normalRelativeAngle;
 import killBot.movement.waveSurfing.Enemy;
 import killBot.KillBot;
 import robocode.AdvancedRobot;
+import killBot.utils.Log;
 import killBot.utils.math.AuxiliarFunctions;
 import killBot.utils.math.FasterCalcs;
+import killBot.utils.math.MovementPredictor;
 import killBot.utils.math.AuxiliarFunctions.RoboPhysics;
 
 public class MovementControl {
@@ -18,6 +20,10 @@ public class MovementControl {
     public static final double IDEAL_ORBITAL_DISTANCE = 300;
     public static final double MIN_DANGER_DISTANCE = 300; // Distância mínima que queremos manter do inimigo.
 
+    private int wallSmoothingIterations = MovementPredictor.DEFAULT_WALL_SMOOTHING_ITERATIONS;
+    /** Área de trabalho para seno e cosseno. */
+    private final double[] sinCos = new double[2];
+
     private double lastDirection = 1; // usada para suavizar a evasao
     private int moveDirection = 1;
     private int timeInDirection = 0;
@@ -119,12 +125,11 @@ public class MovementControl {
      */
     public void doEvasiveMovement(double bestHeading, double bestMoveDirection) {
 
-        System.out.println("\n--- MovementControl.doEvasiveMovement() ---");
-        System.out.println("  Recebido: BestHeading=" + String.format("%.2f", Math.toDegrees(bestHeading))
-                + "deg, BestMoveDirection=" + bestMoveDirection);
+        if (Log.DEBUG) Log.line(bot.getTime()).append("MovementControl.doEvasiveMovement(): BestHeading=")
+                .append(Math.toDegrees(bestHeading), 2).append("deg, BestMoveDirection=").append(bestMoveDirection).end();
 
         if (handleWallProximity()) { 
-            System.out.println("  handleWallProximity ativado. doEvasiveMovement PAROU.");
+            if (Log.DEBUG) Log.line(bot.getTime()).append("  handleWallProximity ativado. doEvasiveMovement PAROU.").end();
             return;
         }
 
@@ -135,17 +140,12 @@ public class MovementControl {
         double maxAllowedTurnRate = RoboPhysics.getMaxTurnRateRadians(currentSpeed);
         turnRate = Math.max(-maxAllowedTurnRate, Math.min(maxAllowedTurnRate, turnRate));
 
-        System.out.println("  Robô Real Pos: (" + String.format("%.2f", bot.getX()) + ", "
-                + String.format("%.2f", bot.getY()) + ") Heading: "
-                + String.format("%.2f", Math.toDegrees(currentHeading)) + " Vel: " + currentSpeed);
-        System.out.println("  TurnRate CALCULADO (e LIMITADO) para o Robô Real: "
-                + String.format("%.2f", Math.toDegrees(turnRate)) + "deg");
-
         bot.setTurnRightRadians(turnRate);
         bot.setAhead(Double.POSITIVE_INFINITY * bestMoveDirection);
-        System.out.println(
-                "  Comandos WaveSurfer enviados: setTurnRightRadians(" + String.format("%.2f", Math.toDegrees(turnRate))
-                        + "deg), setAhead(INFINITO * " + bestMoveDirection + ")");
+        if (Log.DEBUG) Log.line(bot.getTime()).append("  Robô Real Pos: (").append(bot.getX()).append(", ")
+                .append(bot.getY()).append(") Heading: ").append(Math.toDegrees(currentHeading))
+                .append(" Vel: ").append(currentSpeed).append(" TurnRate (limitado): ")
+                .append(Math.toDegrees(turnRate)).append("deg").end();
     }
 
     /**
@@ -153,7 +153,7 @@ public class MovementControl {
      * Ele tenta descolar o robô agressivamente.
      */
     public void doContactEvasion() {
-        System.out.println("MovementControl: ***ATIVANDO FUGA DE CONTATO!***");
+        if (Log.INFOS) Log.line(bot.getTime()).append("MovementControl: ***ATIVANDO FUGA DE CONTATO!***").end();
 
         double currentX = bot.getX();
         double currentY = bot.getY();
@@ -185,8 +185,8 @@ public class MovementControl {
 
             bot.setTurnRightRadians(normalRelativeAngle(wallBearingToFlee - currentHeading));
             bot.setAhead(Double.POSITIVE_INFINITY); // Empurra para fora da parede
-            System.out.println("MovementControl: Fuga de contato: Colado na parede. Virando para "
-                    + String.format("%.2f", Math.toDegrees(wallBearingToFlee)) + "deg e setAhead(INFINITO).");
+            if (Log.DEBUG) Log.line(bot.getTime()).append("MovementControl: Fuga de contato: Colado na parede. Virando para ")
+                    .append(Math.toDegrees(wallBearingToFlee)).append("deg e setAhead(INFINITO).").end();
         } else {
             // Se não está colado na parede, faz a fuga normal de contato (do inimigo)
             bot.setBack(Double.POSITIVE_INFINITY);
@@ -197,12 +197,12 @@ public class MovementControl {
                         targetEnemy.getY());
                 bot.setTurnRightRadians(normalRelativeAngle(angleToEnemy + FasterCalcs.HALF_PI - currentHeading)); // Gira
                 // perpendicular
-                System.out.println(
-                        "MovementControl: Comandos de FUGA DE CONTATO: Back(INFINITO), TurnPerpendicular(90deg).");
+                if (Log.DEBUG) Log.line(bot.getTime())
+                        .append("MovementControl: Comandos de FUGA DE CONTATO: Back(INFINITO), TurnPerpendicular(90deg).").end();
             } else {
                 bot.setTurnRightRadians(normalRelativeAngle(FasterCalcs.HALF_PI));
-                System.out.println(
-                        "MovementControl: Comandos de FUGA DE CONTATO: Back(INFINITO), TurnRight(90deg). (Sem alvo)");
+                if (Log.DEBUG) Log.line(bot.getTime())
+                        .append("MovementControl: Comandos de FUGA DE CONTATO: Back(INFINITO), TurnRight(90deg). (Sem alvo)").end();
             }
         }
     }
@@ -238,9 +238,9 @@ public class MovementControl {
         if (distToLeft < wallMargin || distToRight < wallMargin ||
                 distToBottom < wallMargin || distToTop < wallMargin) {
 
-            System.out.println("MovementControl.handleWallProximity(): ***PERTO DA PAREDE!*** Distâncias: L:"
-                    + String.format("%.0f", distToLeft) + " R:" + String.format("%.0f", distToRight) + " B:"
-                    + String.format("%.0f", distToBottom) + " T:" + String.format("%.0f", distToTop));
+            if (Log.DEBUG) Log.line(bot.getTime()).append("MovementControl.handleWallProximity(): ***PERTO DA PAREDE!*** Distâncias: L:")
+                    .append(distToLeft, 0).append(" R:").append(distToRight, 0).append(" B:")
+                    .append(distToBottom, 0).append(" T:").append(distToTop, 0).end();
 
             // Prioridade se o robo ficou travado
             if (Math.abs(bot.getVelocity()) < 1.0
@@ -260,8 +260,8 @@ public class MovementControl {
                 bot.setTurnRightRadians(normalRelativeAngle(wallBearing - currentHeading)); // gira pro oposto da parede
                 bot.setAhead(Double.POSITIVE_INFINITY); // Tenta ir para frente para descolar
 
-                System.out
-                        .println("MovementControl.handleWallProximity(): Robô travado, forçando RECUA e GIRO.");
+                if (Log.INFOS) Log.line(bot.getTime())
+                        .append("MovementControl.handleWallProximity(): Robô travado, forçando RECUA e GIRO.").end();
                 return true;
             }
 
@@ -274,8 +274,8 @@ public class MovementControl {
             bot.setTurnRightRadians(normalRelativeAngle(angleToCenter - currentHeading));
             bot.setAhead(Double.POSITIVE_INFINITY);
 
-            System.out.println("MovementControl.handleWallProximity(): Ação de parede. Virando para centro ("
-                    + String.format("%.2f", Math.toDegrees(angleToCenter)) + "deg).");
+            if (Log.DEBUG) Log.line(bot.getTime()).append("MovementControl.handleWallProximity(): Ação de parede. Virando para centro (")
+                    .append(Math.toDegrees(angleToCenter)).append("deg).").end();
             return true; // Indicou que uma ação de parede foi tomada
         }
         return false; // Nenhuma ação de parede necessária
@@ -316,26 +316,16 @@ public class MovementControl {
      * @return o angulo para fazer o wallSmoothing
     */
     public double wallSmoothing(double x, double y, double heading, int direction) {
-        double angle = heading;
-        double wallMargin = 40; // Margem de segurança
-
-        for (int i = 0; i < 100; i++) { // Tenta suavizar por até 100 iterações
-            double testX = x + FasterCalcs.sin(angle) * 120;
-            double testY = y + FasterCalcs.cos(angle) * 120;
-
-            if (isSafe(testX, testY, wallMargin)) {
-                break;
-            }
-
-            angle += direction * 0.05; // Suaviza o ângulo girando aos poucos
-        }
-
-        return angle;
+        return MovementPredictor.wallSmoothing(x, y, heading, direction, wallSmoothingIterations,
+                bot.getBattleFieldWidth(), bot.getBattleFieldHeight(), sinCos);
     }
 
-    private boolean isSafe(double x, double y, double margin) {
-        return x > margin && x < bot.getBattleFieldWidth() - margin
-                && y > margin && y < bot.getBattleFieldHeight() - margin;
+    /**
+     * Define o número de iterações do wall smoothing.
+     * @param iterations O número de iterações (mínimo 1).
+     */
+    public void setWallSmoothingIterations(int iterations) {
+        this.wallSmoothingIterations = Math.max(1, iterations);
     }
 
     /**
@@ -18,6 +18,12 @@ public class BulletWave {
     private double directAngle;
     private int direction;
 
+    // angulos de escape precisos, no sentido horario e anti-horario
+    private double clockwiseEscapeAngle;
+    private double counterClockwiseEscapeAngle;
+
+    private Enemy owner; // inimigo que disparou (null se desconhecido)
+
     /**
      * Construtor da classe
      * 
@@ -39,10 +45,49 @@ public class BulletWave {
         this.directAngle = directAngle;
         this.direction = direction;
 
+        // ate que setEscapeAngles seja chamado, usa a estimativa classica nos dois lados
+        this.clockwiseEscapeAngle = FasterCalcs.asin(8.0 / bulletSpeed);
+        this.counterClockwiseEscapeAngle = clockwiseEscapeAngle;
+    }
+
+    /**
+     * Define os angulos de escape precisos do nosso robo no momento do tiro
+     * (ver {@link killBot.utils.math.PreciseEscapeAngle}).
+     *
+     * @param clockwise        angulo de escape no sentido horario (offset positivo)
+     * @param counterClockwise angulo de escape no sentido anti-horario (offset negativo)
+     */
+    public void setEscapeAngles(double clockwise, double counterClockwise) {
+        this.clockwiseEscapeAngle = clockwise;
+        this.counterClockwiseEscapeAngle = counterClockwise;
+    }
+
+    /**
+     * Retorna o angulo de escape do lado em que um desvio se encontra.
+     *
+     * @param angleOffset desvio em relacao ao angulo direto (positivo = horario)
+     * @return o angulo de escape desse lado, nunca zero
+     */
+    public double getEscapeAngle(double angleOffset) {
+        return Math.max(1e-6, angleOffset >= 0 ? clockwiseEscapeAngle : counterClockwiseEscapeAngle);
+    }
+
+    /**
+     * Define o inimigo que disparou a onda, para que ela saia tambem da lista
+     * de ondas dele quando passar.
+     *
+     * @param owner o inimigo que atirou
+     */
+    public void setOwner(Enemy owner) {
+        this.owner = owner;
+    }
+
+    public Enemy getOwner() {
+        return owner;
     }
 
     public double getMaxEscapeAngle() {
-        return FasterCalcs.asin(8.0 / getBulletSpeed());
+        return Math.max(clockwiseEscapeAngle, counterClockwiseEscapeAngle);
     }
 
     // gets:
@@ -1,16 +1,36 @@
 package killBot.movement.waveSurfing;
 
+import java.util.ArrayList;
+
+import killBot.data.StateHistory;
+import robocode.ScannedRobotEvent;
+
 public class Enemy {
 
     // dados do inimigo
     private String enemyName;
+    private final int id; // indice no EnemyRegistry
     private double x, y;
     private double lastEnemyHeading;
     private double lastEnemyVelocity;
     private double lastEnemyEnergy;
+    private double previousEnemyEnergy; // energia esperada antes do ultimo scan
     private long cTime; // tempo que foi escaneado o inimigo
-    public Enemy(String enemyName) {
+    private boolean alive = true;
+    private ScannedRobotEvent lastScan; // ultimo scan, para o GameData comecar dele ao virar alvo
+
+    // historico e ondas proprias deste inimigo
+    private final StateHistory history;
+    private final ArrayList<BulletWave> waves = new ArrayList<>();
+
+    // nossos tiros contra este inimigo
+    private int shotsFired;
+    private int shotsHit;
+
+    public Enemy(String enemyName, int id, int historyCapacity) {
         this.enemyName = enemyName;
+        this.id = id;
+        this.history = new StateHistory(historyCapacity);
     }
 
     /**
@@ -25,12 +45,62 @@ public class Enemy {
      */
     public void updateEnemyData(double x, double y, double lastEnemyHeading, double lastEnemyVelocity,
             double lastEnemyEnergy, long cTime) {
+        // no primeiro scan nao ha energia anterior: queda zero
+        this.previousEnemyEnergy = history.size() == 0 ? lastEnemyEnergy : this.lastEnemyEnergy;
         this.x = x;
         this.y = y;
         this.lastEnemyHeading = lastEnemyHeading;
         this.lastEnemyVelocity = lastEnemyVelocity;
         this.lastEnemyEnergy = lastEnemyEnergy;
         this.cTime = cTime;
+        this.alive = true;
+        history.add(x, y, lastEnemyHeading, lastEnemyVelocity, lastEnemyEnergy, cTime);
+    }
+
+    /**
+     * Queda de energia entre os dois ultimos scans que nao foi explicada por
+     * nossas balas nem pelas balas dele que nos acertaram. Uma queda entre 0.1
+     * e 3 e, quase sempre, um tiro.
+     */
+    public double getEnergyDrop() {
+        return previousEnemyEnergy - lastEnemyEnergy;
+    }
+
+    /**
+     * Nossa bala acertou este inimigo: a energia perdida nao foi um tiro dele.
+     * 
+     * @param remainingEnergy energia do inimigo depois do impacto
+     */
+    public void onHitByOurBullet(double remainingEnergy) {
+        this.lastEnemyEnergy = remainingEnergy;
+        shotsHit++;
+    }
+
+    /**
+     * Uma bala deste inimigo nos acertou: ele recupera 3x a potencia, o que
+     * esconderia um tiro disparado no mesmo intervalo.
+     * 
+     * @param power potencia da bala
+     */
+    public void onHitUs(double power) {
+        this.lastEnemyEnergy += 3 * power;
+    }
+
+    public void onShotFired() {
+        shotsFired++;
+    }
+
+    /**
+     * Taxa de acerto dos nossos tiros contra este inimigo, puxada para
+     * {@code prior} enquanto houver poucos tiros.
+     */
+    public double getHitRate(double prior, int priorShots) {
+        return (shotsHit + prior * priorShots) / (shotsFired + priorShots);
+    }
+
+    public void onDeath() {
+        this.alive = false;
+        this.lastEnemyEnergy = 0;
     }
 
     // gets:
@@ -38,6 +108,10 @@ public class Enemy {
         return enemyName;
     }
 
+    public int getId() {
+        return id;
+    }
+
     public double getX() {
         return x;
     }
@@ -62,6 +136,34 @@ public class Enemy {
         return cTime;
     }
 
+    public ScannedRobotEvent getLastScan() {
+        return lastScan;
+    }
+
+    public void setLastScan(ScannedRobotEvent lastScan) {
+        this.lastScan = lastScan;
+    }
+
+    public boolean isAlive() {
+        return alive;
+    }
+
+    public StateHistory getHistory() {
+        return history;
+    }
+
+    public ArrayList<BulletWave> getWaves() {
+        return waves;
+    }
+
+    public int getShotsFired() {
+        return shotsFired;
+    }
+
+    public int getShotsHit() {
+        return shotsHit;
+    }
+
     /**
      * Metodo de resetar os dados do robo, em caso de morte pode ser util
      */
@@ -71,6 +173,8 @@ public class Enemy {
         this.lastEnemyHeading = 0;
         this.lastEnemyVelocity = 0;
         this.lastEnemyEnergy = 0;
+        this.previousEnemyEnergy = 0;
         this.cTime = 0;
+        this.lastScan = null;
     }
 }
@@ -7,8 +7,11 @@ import java.util.ArrayList;
 
 import killBot.movement.MovementControl;
 import robocode.AdvancedRobot;
+import robocode.Rules;
+import killBot.utils.Log;
 import killBot.utils.math.AuxiliarFunctions;
 import killBot.utils.math.FasterCalcs;
+import killBot.utils.math.MovementPredictor;
 
 public class WaveSurfer {
 
@@ -21,6 +24,39 @@ public class WaveSurfer {
 
     public static int[] STATS_BINS = new int[40];
 
+    /** Número padrão de pontos candidatos avaliados em cada sentido da órbita. */
+    public static final int DEFAULT_CANDIDATE_POINTS = 20;
+    /** Número padrão de ondas (as mais antigas, que chegam primeiro) somadas no perigo. */
+    public static final int DEFAULT_MAX_WAVES = 8;
+
+    private int candidatePoints = DEFAULT_CANDIDATE_POINTS;
+    private int maxWaves = DEFAULT_MAX_WAVES;
+    /** Área de trabalho para seno e cosseno. */
+    private final double[] sinCos = new double[2];
+
+    // --- Surf preciso (previsão de movimento até cada onda) ---
+    /** Opções de movimento avaliadas para cada onda. */
+    private static final int[] OPTIONS = {
+        MovementPredictor.CLOCKWISE, MovementPredictor.COUNTER_CLOCKWISE, MovementPredictor.STOP
+    };
+    /** Tempo padrão do surf preciso por turno, em nanossegundos. */
+    public static final long DEFAULT_SURF_BUDGET = 400_000;
+    /** Perigo mínimo de um bin, para a potência e o tempo pesarem mesmo sem estatística. */
+    private static final double BASE_BIN_DANGER = 0.5;
+
+    private boolean preciseSurfing = true;
+    private long surfBudget = DEFAULT_SURF_BUDGET;
+    private final MovementPredictor predictor;
+    // estados reaproveitados: o atual, o fim de cada opção na primeira onda e um rascunho
+    private final MovementPredictor.State currentState = new MovementPredictor.State();
+    private final MovementPredictor.State[] firstWaveEnd = new MovementPredictor.State[OPTIONS.length];
+    private final MovementPredictor.State secondWaveEnd = new MovementPredictor.State();
+    private final double[] firstWaveDanger = new double[OPTIONS.length];
+    private final int[] optionOrder = new int[OPTIONS.length];
+    // estatísticas do round
+    private long prunedBranches = 0;
+    private long budgetCutoffs = 0;
+
     /**
      * Construtor da classe
      * 
@@ -32,6 +68,11 @@ public class WaveSurfer {
         this.bot = bot;
         this.activeWaves = activeWaves;
         this.movementControl = movementControl;
+        this.predictor = new MovementPredictor(bot.getBattleFieldWidth(), bot.getBattleFieldHeight());
+        predictor.setPreferredDistance(MovementControl.IDEAL_ORBITAL_DISTANCE);
+        for (int i = 0; i < firstWaveEnd.length; i++) {
+            firstWaveEnd[i] = new MovementPredictor.State();
+        }
     }
 
     /**
@@ -73,7 +114,7 @@ public class WaveSurfer {
         // Usamos o valor que salvamos na própria onda.
         int waveDirection = wave.getDirection();
 
-        double guessFactor = Math.max(-1, Math.min(1, angleOffset / wave.getMaxEscapeAngle())) * waveDirection;
+        double guessFactor = Math.max(-1, Math.min(1, angleOffset / wave.getEscapeAngle(angleOffset))) * waveDirection;
 
         // Mapeia o GuessFactor para o índice do nosso array de estatísticas.
         int binIndex = (int) Math.round(((guessFactor + 1) / 2) * (STATS_BINS.length - 1));
@@ -88,12 +129,14 @@ public class WaveSurfer {
      * Metodo que realiza a tecnica de movimentacao WaveSurfing
     */
     public void doWaveSurfing() {
-    System.out.println("\n--- WaveSurfer.doWaveSurfing() (MODO PREDITIVO v4.3 - Inércia) ---");
-
     if (activeWaves.isEmpty()) {
         movementControl.doStandardMovement();
         return;
     }
+    if (preciseSurfing) {
+        doPreciseSurfing();
+        return;
+    }
 
     // MUDANÇA: Variáveis para guardar o melhor ponto e perigo para cada direção
     Point2D.Double bestClockwisePoint = null;       // Melhor ponto na órbita HORÁRIA (-1)
@@ -107,11 +150,15 @@ public class WaveSurfer {
 
     // MUDANÇA: Avalia todos os pontos possíveis, mas guarda os melhores de cada lado separadamente
     for (int direction = -1; direction <= 1; direction += 2) { // direction -1 = horário, 1 = anti-horário
-        for (int i = 0; i < 20; i++) { // Simula "passos" se afastando na órbita
-            double orbitAngle = angleToEnemy + (FasterCalcs.HALF_PI * direction) + (direction * Math.toRadians(i * 2));
+        // Com menos pontos, o passo cresce para cobrir o mesmo trecho da órbita.
+        double step = (double) DEFAULT_CANDIDATE_POINTS / candidatePoints;
+        for (int i = 0; i < candidatePoints; i++) { // Simula "passos" se afastando na órbita
+            double progress = i * step;
+            double orbitAngle = angleToEnemy + (FasterCalcs.HALF_PI * direction) + (direction * Math.toRadians(progress * 2));
+            FasterCalcs.sincos(orbitAngle, sinCos);
             Point2D.Double testPoint = new Point2D.Double(
-                    bot.getX() + FasterCalcs.sin(orbitAngle) * (i * 6),
-                    bot.getY() + FasterCalcs.cos(orbitAngle) * (i * 6));
+                    bot.getX() + sinCos[0] * (progress * 6),
+                    bot.getY() + sinCos[1] * (progress * 6));
 
             if (testPoint.x < 18 || testPoint.y < 18 ||
                     testPoint.x > bot.getBattleFieldWidth() - 18 ||
@@ -120,7 +167,9 @@ public class WaveSurfer {
             }
 
             double totalDangerForThisPoint = 0;
-            for (BulletWave wave : activeWaves) {
+            int waves = Math.min(activeWaves.size(), maxWaves);
+            for (int w = 0; w < waves; w++) {
+                BulletWave wave = activeWaves.get(w);
                 double statisticalDanger = getDangerRating(wave, testPoint.x, testPoint.y);
                 double distanceToEnemy = testPoint.distance(wave.getOriginX(), wave.getOriginY());
                 double idealDistance = 300.0;
@@ -167,16 +216,228 @@ public class WaveSurfer {
     // Se, mesmo assim, nenhum ponto for válido (ex: preso num canto)
     if (bestDestination == null) {
         movementControl.doEmergencyWallSmoothing();
-        System.out.println("WaveSurfer: Nenhuma rota válida. Ativando Wall Smoothing de emergência.");
+        if (Log.INFOS) Log.line(bot.getTime()).append("WaveSurfer: Nenhuma rota válida. Ativando Wall Smoothing de emergência.").end();
         return;
     }
 
     goTo(bestDestination);
-    System.out.println("WaveSurfer: Rota Escolhida -> Destino: (" +
-            String.format("%.0f", bestDestination.x) + ", " +
-            String.format("%.0f", bestDestination.y) + "), Perigo Mínimo Total: " + Math.min(bestClockwiseDanger, bestAntiClockwiseDanger));
+    if (Log.DEBUG) Log.line(bot.getTime()).append("WaveSurfer: Rota Escolhida -> Destino: (")
+            .append(bestDestination.x, 0).append(", ").append(bestDestination.y, 0)
+            .append("), Perigo Mínimo Total: ").append(Math.min(bestClockwiseDanger, bestAntiClockwiseDanger)).end();
 }
 
+    /**
+     * Surf com previsão precisa e olhar adiante de uma onda.
+     *
+     * Para a onda que chega primeiro, simula cada opção (orbitar em um sentido,
+     * no outro, ou parar) até o turno exato de interceptação. A partir de cada
+     * estado final, simula as opções contra a segunda onda e fica com a melhor.
+     * O perigo de cada onda é o bin do GuessFactor no ponto de impacto, pesado
+     * pelo dano da bala e dividido pelos turnos até o impacto (quanto mais
+     * longe, mais dá para corrigir depois).
+     *
+     * Poda: as opções da primeira onda são expandidas da menos para a mais
+     * perigosa, e uma opção cujo perigo só da primeira onda já não ganha da
+     * melhor soma encontrada é descartada sem simular a segunda onda. Se o prazo
+     * do turno acabar, as opções que faltam também são descartadas.
+     */
+    private void doPreciseSurfing() {
+        long deadline = System.nanoTime() + surfBudget;
+        long now = bot.getTime();
+        currentState.set(bot.getX(), bot.getY(), bot.getHeadingRadians(), bot.getVelocity(), now);
+
+        // as duas ondas que chegam primeiro e ainda não passaram pelo nosso centro
+        BulletWave first = null;
+        BulletWave second = null;
+        double firstImpact = Double.POSITIVE_INFINITY;
+        double secondImpact = Double.POSITIVE_INFINITY;
+        for (int w = 0; w < activeWaves.size(); w++) {
+            BulletWave wave = activeWaves.get(w);
+            double impact = ticksToImpact(wave, currentState.x, currentState.y, now);
+            if (impact <= 0) {
+                continue;
+            }
+            if (impact < firstImpact) {
+                second = first;
+                secondImpact = firstImpact;
+                first = wave;
+                firstImpact = impact;
+            } else if (impact < secondImpact) {
+                second = wave;
+                secondImpact = impact;
+            }
+        }
+        if (first == null) {
+            movementControl.doStandardMovement();
+            return;
+        }
+        if (maxWaves < 2) {
+            second = null;
+        }
+
+        // primeira onda: todas as opções, até a interceptação
+        for (int o = 0; o < OPTIONS.length; o++) {
+            MovementPredictor.State end = firstWaveEnd[o];
+            predictor.predict(currentState, first.getOriginX(), first.getOriginY(), first.getFireTime(),
+                    first.getBulletSpeed(), OPTIONS[o], end);
+            firstWaveDanger[o] = weightedDanger(first, end, now)
+                    + positionPenalty(first, end.x, end.y);
+            // ordena por perigo (inserção, são só três)
+            int i = o;
+            while (i > 0 && firstWaveDanger[optionOrder[i - 1]] > firstWaveDanger[o]) {
+                optionOrder[i] = optionOrder[i - 1];
+                i--;
+            }
+            optionOrder[i] = o;
+        }
+
+        // segunda onda: só para as opções que ainda podem ganhar
+        int bestOption = optionOrder[0];
+        double bestDanger = Double.POSITIVE_INFINITY;
+        for (int k = 0; k < OPTIONS.length; k++) {
+            int o = optionOrder[k];
+            double danger = firstWaveDanger[o];
+            if (danger >= bestDanger) {
+                if (second != null) {
+                    prunedBranches += OPTIONS.length - k; // as seguintes são ainda piores
+                }
+                break;
+            }
+            if (second != null) {
+                if (k > 0 && System.nanoTime() > deadline) {
+                    budgetCutoffs++;
+                    break;
+                }
+                danger += secondWaveDanger(second, firstWaveEnd[o], now);
+            }
+            if (danger < bestDanger) {
+                bestDanger = danger;
+                bestOption = o;
+            }
+        }
+
+        executeOption(first, OPTIONS[bestOption]);
+        if (Log.DEBUG) Log.line(now).append("WaveSurfer: opção ").append(OPTIONS[bestOption])
+                .append(", perigo ").append(bestDanger, 2).append(", impacto em ").append(firstImpact, 1)
+                .append(" turnos").append(second != null ? " (com segunda onda)" : "").end();
+    }
+
+    /**
+     * Menor perigo da segunda onda partindo de um estado final da primeira.
+     */
+    private double secondWaveDanger(BulletWave wave, MovementPredictor.State from, long now) {
+        if (ticksToImpact(wave, from.x, from.y, from.time) <= 0) {
+            // a segunda onda chega junto com a primeira: o impacto é no mesmo ponto
+            return weightedDanger(wave, from, now);
+        }
+        double best = Double.POSITIVE_INFINITY;
+        for (int o = 0; o < OPTIONS.length; o++) {
+            predictor.predict(from, wave.getOriginX(), wave.getOriginY(), wave.getFireTime(),
+                    wave.getBulletSpeed(), OPTIONS[o], secondWaveEnd);
+            best = Math.min(best, weightedDanger(wave, secondWaveEnd, now));
+        }
+        return best;
+    }
+
+    /**
+     * Perigo de uma onda no ponto de impacto, pesado pelo dano da bala e pelo
+     * tempo (a partir de agora) até o impacto.
+     */
+    private double weightedDanger(BulletWave wave, MovementPredictor.State impact, long now) {
+        double danger = getDangerRating(wave, impact.x, impact.y) + BASE_BIN_DANGER;
+        return danger * Rules.getBulletDamage(wave.getBulletPower()) / Math.max(1, impact.time - now);
+    }
+
+    /**
+     * Penalidades de distância ao inimigo e de parede, as mesmas do surf por pontos.
+     */
+    private double positionPenalty(BulletWave wave, double x, double y) {
+        double dx = x - wave.getOriginX();
+        double dy = y - wave.getOriginY();
+        double distancePenalty = Math.abs(Math.sqrt(dx * dx + dy * dy) - MovementControl.IDEAL_ORBITAL_DISTANCE) * 0.02;
+        return distancePenalty + calculateWallPenalty(x, y);
+    }
+
+    /**
+     * Turnos até a onda alcançar o ponto (0 ou menos se já alcançou).
+     */
+    private static double ticksToImpact(BulletWave wave, double x, double y, long time) {
+        double dx = x - wave.getOriginX();
+        double dy = y - wave.getOriginY();
+        double radius = (time - wave.getFireTime()) * wave.getBulletSpeed();
+        return (Math.sqrt(dx * dx + dy * dy) - radius) / wave.getBulletSpeed();
+    }
+
+    /**
+     * Executa neste turno o primeiro passo da opção escolhida, do mesmo jeito
+     * que a previsão o simulou.
+     */
+    private void executeOption(BulletWave wave, int option) {
+        if (option == MovementPredictor.STOP) {
+            bot.setTurnRightRadians(0);
+            bot.setAhead(0);
+            return;
+        }
+        lastOrbitDirection = option;
+        double angle = predictor.orbitAngle(bot.getX(), bot.getY(), wave.getOriginX(), wave.getOriginY(), option);
+        double turn = normalRelativeAngle(angle - bot.getHeadingRadians());
+        int direction = 1;
+        if (Math.abs(turn) > FasterCalcs.HALF_PI) {
+            turn = normalRelativeAngle(turn + FasterCalcs.PI);
+            direction = -1;
+        }
+        bot.setTurnRightRadians(turn);
+        bot.setAhead(100 * direction);
+    }
+
+    /**
+     * Liga ou desliga o surf preciso; desligado, volta para o surf por pontos.
+     */
+    public void setPreciseSurfing(boolean precise) {
+        this.preciseSurfing = precise;
+    }
+
+    /**
+     * Define o tempo máximo do surf preciso por turno. A primeira onda é sempre
+     * avaliada; o prazo limita quantas opções recebem o olhar adiante.
+     * @param nanos O prazo em nanossegundos.
+     */
+    public void setSurfBudget(long nanos) {
+        this.surfBudget = Math.max(0, nanos);
+    }
+
+    /**
+     * Define as iterações do wall smoothing usado nas previsões.
+     */
+    public void setPredictionSmoothingIterations(int iterations) {
+        predictor.setWallSmoothingIterations(iterations);
+    }
+
+    public long getPrunedBranches() {
+        return prunedBranches;
+    }
+
+    public long getBudgetCutoffs() {
+        return budgetCutoffs;
+    }
+
+    /**
+     * Define quantos pontos candidatos são avaliados em cada sentido da órbita.
+     * @param points O número de pontos (mínimo 2).
+     */
+    public void setCandidatePoints(int points) {
+        this.candidatePoints = Math.max(2, points);
+    }
+
+    /**
+     * Define quantas ondas, a partir da mais antiga, entram na soma do perigo.
+     * No surf preciso, menos de 2 desliga o olhar adiante da segunda onda.
+     * @param waves O número de ondas (mínimo 1).
+     */
+    public void setMaxWaves(int waves) {
+        this.maxWaves = Math.max(1, waves);
+    }
+
     // Novos getters para os pontos de debug
     public ArrayList<Point2D.Double> getChosenPathPoints() {
         return chosenPathPoints;
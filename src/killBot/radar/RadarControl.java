@@ -12,8 +12,14 @@ public class RadarControl {
     public ScannedRobotEvent lastScan = null; //guarda o ultimo robo que viu
 
     private static final int shortSweeps = 3; //quantas varreduras curtas antes de entrar no modo busca novamente
+    //no melee, de quantos em quantos turnos o radar solta o alvo e da uma volta completa;
+    //com a volta (8 turnos a 45 graus) cada inimigo e visto bem antes de EnemyRegistry.STALE_TICKS
+    private static final int MELEE_SWEEP_INTERVAL = 24;
+    private static final int FULL_SWEEP_TICKS = 8;
     private double radarDirection = 1; //1 para direita, -1 para esquerda
     private int radarSweep = 0; //Varredura completa
+    private long sweepEndTime = -1; //turno em que a volta completa do melee termina
+    private long nextSweepTime = 0; //turno da proxima volta completa do melee
 
     
     public RadarControl(AdvancedRobot robot)
@@ -46,6 +52,10 @@ public class RadarControl {
     //define a logica principal do radar
     public void radarLogic()
     {
+        if(meleeSweep())
+        {
+            return;
+        }
         if(lastScan == null || robot.getTime() - lastScan.getTime() > 2)
         {
             search();
@@ -56,6 +66,27 @@ public class RadarControl {
         }
     }
 
+    //no melee, da uma volta completa periodica para atualizar todos os inimigos, nao so o alvo
+    private boolean meleeSweep()
+    {
+        long time = robot.getTime();
+        if(robot.getOthers() <= 1)
+        {
+            return false;
+        }
+        if(time >= nextSweepTime)
+        {
+            sweepEndTime = time + FULL_SWEEP_TICKS;
+            nextSweepTime = time + MELEE_SWEEP_INTERVAL;
+        }
+        if(time >= sweepEndTime)
+        {
+            return false;
+        }
+        robot.setTurnRadarRight(radarDirection * Double.POSITIVE_INFINITY);
+        return true;
+    }
+
     //trava o radar assim que avista um inimigo
     public void radarLock()
     {
@@ -0,0 +1,114 @@
+package killBot.utils;
+
+/**
+ * Histograma de tempos (em nanossegundos) com buckets fixos.
+ *
+ * Os buckets são logarítmicos com 4 subdivisões por potência de 2 (erro de no
+ * máximo 25% em cada percentil) e vão de 1 ns a mais de 10 minutos. Registrar um
+ * valor custa um {@code numberOfLeadingZeros} e um incremento de array, sem
+ * alocar memória, então pode ficar ligado durante a batalha.
+ */
+public class LatencyHistogram {
+
+    /** Valores abaixo disso têm um bucket cada. */
+    private static final int LINEAR_LIMIT = 16;
+    /** Expoente (log2) de {@link #LINEAR_LIMIT}. */
+    private static final int LINEAR_BITS = 4;
+    private static final int SUB_BUCKETS = 4;
+    private static final int SUB_BITS = 2;
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKETS = LINEAR_LIMIT + (MAX_EXPONENT - LINEAR_BITS + 1) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count = 0;
+    private long total = 0;
+    private long max = 0;
+
+    /**
+     * Registra um tempo.
+     * @param nanos O tempo medido, em nanossegundos.
+     */
+    public void record(long nanos)
+    {
+        if(nanos < 0) nanos = 0;
+        counts[bucket(nanos)]++;
+        count++;
+        total += nanos;
+        if(nanos > max) max = nanos;
+    }
+
+    /**
+     * Estima um percentil pelo limite superior do bucket em que ele cai.
+     * @param percentile O percentil, entre 0 e 100.
+     * @return O tempo estimado em nanossegundos, ou 0 se não houver registros.
+     */
+    public long getPercentile(double percentile)
+    {
+        if(count == 0)
+        {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100.0));
+        long seen = 0;
+        for(int i = 0; i < BUCKETS; i++)
+        {
+            seen += counts[i];
+            if(seen >= rank)
+            {
+                return Math.min(upperBound(i), max);
+            }
+        }
+        return max;
+    }
+
+    public long getCount()
+    {
+        return count;
+    }
+
+    public long getMax()
+    {
+        return max;
+    }
+
+    /**
+     * @return O tempo médio em nanossegundos, ou 0 se não houver registros.
+     */
+    public double getMean()
+    {
+        return count == 0 ? 0 : (double) total / count;
+    }
+
+    public void clear()
+    {
+        for(int i = 0; i < BUCKETS; i++)
+        {
+            counts[i] = 0;
+        }
+        count = 0;
+        total = 0;
+        max = 0;
+    }
+
+    private static int bucket(long nanos)
+    {
+        if(nanos < LINEAR_LIMIT)
+        {
+            return (int) nanos;
+        }
+        int exponent = Math.min(MAX_EXPONENT, 63 - Long.numberOfLeadingZeros(nanos));
+        int sub = (int) Math.min(SUB_BUCKETS - 1, (nanos >>> (exponent - SUB_BITS)) - SUB_BUCKETS);
+        return LINEAR_LIMIT + (exponent - LINEAR_BITS) * SUB_BUCKETS + sub;
+    }
+
+    private static long upperBound(int bucket)
+    {
+        if(bucket < LINEAR_LIMIT)
+        {
+            return bucket;
+        }
+        int exponent = LINEAR_BITS + (bucket - LINEAR_LIMIT) / SUB_BUCKETS;
+        int sub = (bucket - LINEAR_LIMIT) % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + sub + 1) << (exponent - SUB_BITS)) - 1;
+    }
+}
@@ -0,0 +1,179 @@
+package killBot.utils;
+
+import java.io.PrintStream;
+
+/**
+ * Log do robô, feito para ser usado dentro do loop de turnos.
+ *
+ * O nível é uma constante de compilação: as chamadas devem ficar dentro de um
+ * {@code if} com a constante do nível, por exemplo
+ * <pre>
+ * if(Log.DEBUG) Log.line(getTime()).append("GF: ").append(gf, 2).end();
+ * </pre>
+ * e o compilador remove o bloco inteiro quando o nível está desligado, então
+ * nenhum texto é montado. Quando ligado, o texto é escrito direto em um buffer
+ * circular de caracteres pré-alocado, sem criar Strings nem usar
+ * {@code String.format}. O buffer só vai para a saída do robô em {@link #dump},
+ * chamado no fim do round ou quando for preciso; se encher, as linhas mais
+ * antigas são sobrescritas.
+ */
+public final class Log {
+
+    public static final int OFF = 0;
+    public static final int ERROR = 1;
+    public static final int WARN = 2;
+    public static final int INFO = 3;
+    public static final int DEBUG_LEVEL = 4;
+
+    /**
+     * Nível de log atual. Troque e recompile para ligar ou desligar. O padrão
+     * (WARN) é o das batalhas de verdade; INFO e DEBUG são para rodadas locais,
+     * ao investigar o robô, e não devem ser entregues ligados.
+     */
+    public static final int LEVEL = WARN;
+
+    public static final boolean ERRORS = LEVEL >= ERROR;
+    public static final boolean WARNINGS = LEVEL >= WARN;
+    public static final boolean INFOS = LEVEL >= INFO;
+    public static final boolean DEBUG = LEVEL >= DEBUG_LEVEL;
+
+    /** Tamanho do buffer circular (potência de 2). */
+    private static final int CAPACITY = 1 << 16;
+    private static final int MASK = CAPACITY - 1;
+    private static final char[] RING = new char[CAPACITY];
+    /** Total de caracteres já escritos; a posição no buffer é {@code written & MASK}. */
+    private static long written = 0;
+    /** Total de caracteres escritos até o último dump. */
+    private static long dumped = 0;
+
+    /** Maior número de casas decimais aceito por {@link #append(double, int)}. */
+    private static final int MAX_DECIMALS = 6;
+    private static final long[] POWERS_OF_TEN = { 1, 10, 100, 1000, 10000, 100000, 1000000 };
+    /** Dígitos de um número, escritos de trás para frente. */
+    private static final char[] DIGITS = new char[20];
+
+    private static final Log INSTANCE = new Log();
+
+    private Log() {
+    }
+
+    /**
+     * Começa uma nova linha com o turno atual.
+     * @param time O turno atual.
+     * @return O log, para encadear as chamadas.
+     */
+    public static Log line(long time) {
+        return INSTANCE.append('[').append(time).append("] ");
+    }
+
+    public Log append(char c) {
+        RING[(int) (written++ & MASK)] = c;
+        return this;
+    }
+
+    public Log append(String s) {
+        if (s == null) {
+            return append("null");
+        }
+        for (int i = 0; i < s.length(); i++) {
+            RING[(int) (written++ & MASK)] = s.charAt(i);
+        }
+        return this;
+    }
+
+    public Log append(boolean b) {
+        return append(b ? "true" : "false");
+    }
+
+    public Log append(long value) {
+        if (value == Long.MIN_VALUE) {
+            return append("-9223372036854775808");
+        }
+        if (value < 0) {
+            append('-');
+            value = -value;
+        }
+        int count = 0;
+        do {
+            DIGITS[count++] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        while (count > 0) {
+            append(DIGITS[--count]);
+        }
+        return this;
+    }
+
+    /**
+     * Escreve um double com duas casas decimais.
+     */
+    public Log append(double value) {
+        return append(value, 2);
+    }
+
+    /**
+     * Escreve um double com um número fixo de casas decimais, arredondado.
+     * @param value O valor.
+     * @param decimals O número de casas (0 a 6).
+     * @return O log, para encadear as chamadas.
+     */
+    public Log append(double value, int decimals) {
+        if (Double.isNaN(value)) {
+            return append("NaN");
+        }
+        if (Double.isInfinite(value)) {
+            return append(value > 0 ? "Infinity" : "-Infinity");
+        }
+        decimals = Math.max(0, Math.min(MAX_DECIMALS, decimals));
+        long scale = POWERS_OF_TEN[decimals];
+        long scaled = Math.round(Math.abs(value) * scale);
+        if (value < 0 && scaled != 0) {
+            append('-');
+        }
+        append(scaled / scale);
+        if (decimals > 0) {
+            append('.');
+            long fraction = scaled % scale;
+            for (long p = scale / 10; p > 0; p /= 10) {
+                append((char) ('0' + (fraction / p) % 10));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Termina a linha atual.
+     */
+    public void end() {
+        append('\n');
+    }
+
+    /**
+     * Escreve na saída tudo o que foi registrado desde o último dump (ou o que
+     * ainda cabe no buffer, se ele tiver dado a volta) e esvazia o buffer.
+     * @param out A saída, normalmente o {@code out} do robô.
+     */
+    public static void dump(PrintStream out) {
+        long start = Math.max(dumped, written - CAPACITY);
+        if (start > dumped) {
+            // O buffer deu a volta: pula a linha que ficou cortada no início.
+            while (start < written && RING[(int) (start & MASK)] != '\n') {
+                start++;
+            }
+            start++;
+        }
+        if (start < written) {
+            if (start > dumped) {
+                out.println("... (" + (start - dumped) + " caracteres antigos descartados)");
+            }
+            int from = (int) (start & MASK);
+            int length = (int) (written - start);
+            int firstPart = Math.min(length, CAPACITY - from);
+            out.print(new String(RING, from, firstPart));
+            if (firstPart < length) {
+                out.print(new String(RING, 0, length - firstPart));
+            }
+        }
+        dumped = written;
+    }
+}
@@ -0,0 +1,156 @@
+package killBot.utils;
+
+import java.io.PrintStream;
+
+/**
+ * Mede quanto tempo cada etapa do loop principal do {@code KillBot} gasta por
+ * turno e conta os turnos perdidos ({@code SkippedTurnEvent}).
+ *
+ * Cada etapa tem um {@link LatencyHistogram} do round e outro da batalha (estático,
+ * para sobreviver entre rounds). As etapas são medidas em sequência: {@link #end}
+ * registra o tempo desde a última marca e já marca o início da próxima etapa,
+ * então cada etapa custa uma única chamada a {@code System.nanoTime()}.
+ */
+public class TickProfiler {
+
+    public static final int RADAR = 0;
+    public static final int WAVES = 1;
+    public static final int SHOOT = 2;
+    public static final int DECAY = 3;
+    public static final int SURF = 4;
+    /** O turno inteiro, do início do loop até antes do {@code execute()}. */
+    public static final int TICK = 5;
+    public static final int STAGES = 6;
+
+    private static final String[] NAMES = {
+        "radar.radarLogic", "waveManager.updateWaves", "aimer.shoot",
+        "aimer.decayBINS", "waveSurfer.doWaveSurfing", "turno (total)"
+    };
+
+    private static final LatencyHistogram[] BATTLE = newHistograms();
+    private static int battleSkippedTurns = 0;
+
+    private final LatencyHistogram[] round = newHistograms();
+    private int skippedTurns = 0;
+
+    private long tickStart;
+    private long mark;
+    private long lastTickNanos;
+
+    /**
+     * Marca o início do turno.
+     */
+    public void beginTick()
+    {
+        tickStart = System.nanoTime();
+        mark = tickStart;
+    }
+
+    /**
+     * Marca o início de uma etapa que não vem logo depois da anterior.
+     */
+    public void begin()
+    {
+        mark = System.nanoTime();
+    }
+
+    /**
+     * Registra o tempo da etapa desde a última marca.
+     * @param stage A etapa medida (uma das constantes desta classe).
+     */
+    public void end(int stage)
+    {
+        long now = System.nanoTime();
+        record(stage, now - mark);
+        mark = now;
+    }
+
+    /**
+     * Registra o tempo total do turno.
+     */
+    public void endTick()
+    {
+        lastTickNanos = System.nanoTime() - tickStart;
+        record(TICK, lastTickNanos);
+    }
+
+    /**
+     * @return O tempo total do último turno completo, em nanossegundos.
+     */
+    public long getLastTickNanos()
+    {
+        return lastTickNanos;
+    }
+
+    public void onSkippedTurn()
+    {
+        skippedTurns++;
+        battleSkippedTurns++;
+    }
+
+    public int getSkippedTurns()
+    {
+        return skippedTurns;
+    }
+
+    /**
+     * Histograma do round de uma etapa.
+     * @param stage A etapa (uma das constantes desta classe).
+     */
+    public LatencyHistogram getHistogram(int stage)
+    {
+        return round[stage];
+    }
+
+    /**
+     * Imprime p50/p99/máximo de cada etapa no round atual.
+     */
+    public void printRoundReport(PrintStream out)
+    {
+        out.println("Tempos do round (turnos perdidos: " + skippedTurns + ")");
+        print(out, round);
+    }
+
+    /**
+     * Imprime p50/p99/máximo de cada etapa somando todos os rounds da batalha.
+     */
+    public static void printBattleReport(PrintStream out)
+    {
+        out.println("Tempos da batalha (turnos perdidos: " + battleSkippedTurns + ")");
+        print(out, BATTLE);
+    }
+
+    private void record(int stage, long nanos)
+    {
+        round[stage].record(nanos);
+        BATTLE[stage].record(nanos);
+    }
+
+    private static void print(PrintStream out, LatencyHistogram[] histograms)
+    {
+        for(int i = 0; i < STAGES; i++)
+        {
+            LatencyHistogram h = histograms[i];
+            out.println("  " + NAMES[i] + ": p50=" + micros(h.getPercentile(50))
+                    + "us p99=" + micros(h.getPercentile(99))
+                    + "us max=" + micros(h.getMax())
+                    + "us n=" + h.getCount());
+        }
+    }
+
+    /** Converte para microssegundos com uma casa decimal. */
+    private static double micros(long nanos)
+    {
+        return Math.round(nanos / 100.0) / 10.0;
+    }
+
+    private static LatencyHistogram[] newHistograms()
+    {
+        LatencyHistogram[] histograms = new LatencyHistogram[STAGES];
+        for(int i = 0; i < STAGES; i++)
+        {
+            histograms[i] = new LatencyHistogram();
+        }
+        return histograms;
+    }
+}
@@ -9,6 +9,16 @@ import java.awt.geom.Point2D;
 //entao para nao perder tempo, criamos a classe FasterCalcs, que acelera os calculos padroes
 //, utilizando aproximacoes polinomiais.
 //(valores vieram de pesquisas sobre robos que ja existem no robocode).
+//
+//Tempos e erros de cada funcao contra Math e StrictMath: rode FasterCalcsBenchmark (em bench/).
+//Funcoes que nao ganham do Math (floor e sqrt, que o JIT trata como intrinsecas,
+//e exp, cujo erro chega a 3%) apenas repassam para o Math.
+//
+//Seno e cosseno tem dois backends, escolhidos no inicio da batalha:
+//- polinomial (padrao): reducao de faixa com floor e um polinomio de grau 6;
+//- tabela: seno pre-calculado em N pontos da volta (N potencia de 2), com
+//  interpolacao linear ou ponto mais proximo. Ver useTableBackend.
+//sincos devolve os dois valores com uma unica reducao de faixa.
 //----------------------------------------------------------------------------------------
 
 public class FasterCalcs {
@@ -19,25 +29,93 @@ public class FasterCalcs {
    public static final double THREE_OVER_TWO_PI
    = 4.7123889803846898576939650749193D;
 
-   public static void main(String[] args){
-
-      double maxdiff = 0;
-      double sum = 0;
-      double dv = 0;
-      for(int i = 0; i < 500000; i++){
-         double p = (i-250000)*(1.571/250000);
-         double diff = Math.abs((Math.atan(p) - atan(p)));
-         sum += diff;
-         if(diff > maxdiff){
-            maxdiff = diff;
-            dv = p;
+   //--- Backend de tabela ---
+   private static boolean tableBackend = false;
+   private static boolean tableInterpolate = true;
+   //seno de i * 2pi / N, com uma entrada extra no fim para a interpolacao
+   private static double[] sinTable = new double[0];
+   private static int tableMask;
+   private static int tableQuarter;
+   private static double tableScale;
+
+   //Troca seno e cosseno para o backend de tabela.
+   //resolution: pontos por volta (arredondado para cima para potencia de 2, minimo 16).
+   //interpolate: true para interpolacao linear, false para o ponto mais proximo.
+   public static void useTableBackend(int resolution, boolean interpolate) {
+      int size = Integer.highestOneBit(Math.max(16, resolution));
+      if(size < resolution)
+         size <<= 1;
+      double[] table = new double[size + 1];
+      for(int i = 0; i <= size; i++)
+         table[i] = Math.sin(i * (TWO_PI / size));
+      sinTable = table;
+      tableMask = size - 1;
+      tableQuarter = size / 4;
+      tableScale = size / TWO_PI;
+      tableInterpolate = interpolate;
+      tableBackend = true;
+   }
+
+   //Volta seno e cosseno para o backend polinomial.
+   public static void usePolynomialBackend() {
+      tableBackend = false;
+   }
+
+   public static boolean isTableBackend() {
+      return tableBackend;
+   }
+
+   //seno pela tabela; shift = N/4 da o cosseno
+   private static double tableSin(double d, int shift) {
+      double x = d * tableScale;
+      if(tableInterpolate) {
+         double fl = Math.floor(x);
+         int i = (int) ((long) fl + shift) & tableMask;
+         return sinTable[i] + (sinTable[i + 1] - sinTable[i]) * (x - fl);
+      }
+      return sinTable[(int) ((long) Math.floor(x + 0.5) + shift) & tableMask];
+   }
+
+   //Calcula seno e cosseno do mesmo angulo de uma vez: out[0] = sin, out[1] = cos.
+   public static final void sincos(double d, double[] out) {
+      if(tableBackend) {
+         double x = d * tableScale;
+         if(tableInterpolate) {
+            double fl = Math.floor(x);
+            double frac = x - fl;
+            int i = (int) (long) fl & tableMask;
+            int j = (i + tableQuarter) & tableMask;
+            out[0] = sinTable[i] + (sinTable[i + 1] - sinTable[i]) * frac;
+            out[1] = sinTable[j] + (sinTable[j + 1] - sinTable[j]) * frac;
+         }
+         else {
+            int i = (int) (long) Math.floor(x + 0.5) & tableMask;
+            out[0] = sinTable[i];
+            out[1] = sinTable[(i + tableQuarter) & tableMask];
          }
+         return;
       }
-      System.out.println(maxdiff);
-      System.out.println(dv);
-      System.out.println(sum);
+
+      d += Math.PI;
+      double x2 = Math.floor(d*(1/(2*Math.PI)));
+      d -= x2*(2*Math.PI);
+      d-=Math.PI;
+   
+      x2 = d * d;
+   
+      out[0] =
+         (((((-2.05342856289746600727e-08*x2 + 2.70405218307799040084e-06)*x2
+         - 1.98125763417806681909e-04)*x2 + 8.33255814755188010464e-03)*x2
+         - 1.66665772196961623983e-01)*x2 + 9.99999707044156546685e-01)*d;
+      out[1] =
+         ((((- 2.21941782786353727022e-07*x2 + 2.42532401381033027481e-05)*x2
+         - 1.38627507062573673756e-03)*x2 + 4.16610337354021107429e-02)*x2
+         - 4.99995582499065048420e-01)*x2 + 1;
    }
+
    public static final double sin(double d) {
+      if(tableBackend)
+         return tableSin(d, 0);
       d += Math.PI;
       double x2 = Math.floor(d*(1/(2*Math.PI)));
       d -= x2*(2*Math.PI);
@@ -54,6 +132,8 @@ public class FasterCalcs {
 
 
    public static final double cos(double d) {
+      if(tableBackend)
+         return tableSin(d, tableQuarter);
       d += Math.PI;
       double x2 = Math.floor(d*(1/(2*Math.PI)));
       d -= x2*(2*Math.PI);
@@ -110,12 +190,7 @@ public class FasterCalcs {
    }
 
    public static final double floor(double value){
-      double d = (long)value;
-      if(value > 0)
-         return d;
-      if(value == d)
-         return d;
-      return d - 1;
+      return Math.floor(value);
    }   
 
    public static final double asin(double value) {
@@ -176,8 +251,7 @@ public class FasterCalcs {
 
    }
    public static double exp(double val) {
-      final long tmp = (long) (1512775 * val + (1072693248 - 60801));
-      return Double.longBitsToDouble(tmp << 32);
+      return Math.exp(val);
    }
    public static final double normalRelativeAngle(double d){
       d += Math.PI;
@@ -0,0 +1,270 @@
+package killBot.utils.math;
+
+import robocode.Rules;
+
+/**
+ * Previsão precisa do nosso movimento, turno a turno, com a física do Robocode.
+ *
+ * A cada turno simulado, na mesma ordem do motor do Robocode:
+ * 1. o giro, limitado por {@link Rules#getTurnRateRadians} na velocidade do
+ *    início do turno;
+ * 2. a velocidade, com aceleração 1 e frenagem 2 (ao inverter o sentido, o
+ *    turno que cruza o zero freia e depois acelera com o tempo que sobrou);
+ * 3. o deslocamento na nova direção, parando (velocidade 0) ao bater na parede.
+ *
+ * As opções de movimento são orbitar a origem da onda em um dos sentidos, com
+ * wall smoothing, ou parar. A simulação vai até o turno em que a onda alcança o
+ * centro do robô (o turno de interceptação).
+ *
+ * Nada é alocado: o estado inicial e o final são objetos {@link State} do
+ * chamador, e a simulação usa só variáveis locais e uma área de trabalho fixa.
+ * Uma instância não deve ser usada por duas threads ao mesmo tempo.
+ */
+public class MovementPredictor {
+
+    /** Opções de movimento: orbitar no sentido horário, anti-horário ou parar. */
+    public static final int CLOCKWISE = 1;
+    public static final int COUNTER_CLOCKWISE = -1;
+    public static final int STOP = 0;
+
+    /** Meia largura do robô: o centro nunca chega mais perto da parede que isso. */
+    private static final double HALF_BOT = 18;
+    /** Parâmetros do wall smoothing, usado também pelo MovementControl. */
+    private static final double WALL_MARGIN = 40;
+    private static final double WALL_STICK = 120;
+    public static final int DEFAULT_WALL_SMOOTHING_ITERATIONS = 100;
+    private static final double WALL_SMOOTHING_SWEEP = DEFAULT_WALL_SMOOTHING_ITERATIONS * 0.05;
+    /** Quanto o ângulo de órbita se inclina por pixel de erro na distância preferida. */
+    private static final double DISTANCING_GAIN = 0.002;
+    /** Inclinação máxima do ângulo de órbita para corrigir a distância. */
+    private static final double MAX_ATTACK_ANGLE = Math.toRadians(35);
+    /** Limite de turnos simulados (uma bala lenta cruza o campo em menos que isso). */
+    public static final int MAX_TICKS = 150;
+
+    /**
+     * Estado de um robô em um turno, mutável para ser reaproveitado.
+     */
+    public static final class State {
+        public double x;
+        public double y;
+        public double heading;
+        public double velocity;
+        public long time;
+
+        public void set(double x, double y, double heading, double velocity, long time)
+        {
+            this.x = x;
+            this.y = y;
+            this.heading = heading;
+            this.velocity = velocity;
+            this.time = time;
+        }
+
+        public void copyFrom(State other)
+        {
+            set(other.x, other.y, other.heading, other.velocity, other.time);
+        }
+    }
+
+    private final double fieldWidth;
+    private final double fieldHeight;
+    private int wallSmoothingIterations = DEFAULT_WALL_SMOOTHING_ITERATIONS;
+    private double preferredDistance = 0;
+    /** Área de trabalho para seno e cosseno. */
+    private final double[] sinCos = new double[2];
+
+    /**
+     * @param fieldWidth Largura do campo.
+     * @param fieldHeight Altura do campo.
+     */
+    public MovementPredictor(double fieldWidth, double fieldHeight)
+    {
+        this.fieldWidth = fieldWidth;
+        this.fieldHeight = fieldHeight;
+    }
+
+    /**
+     * Define o número de iterações do wall smoothing (o giro total varrido é o mesmo).
+     * @param iterations O número de iterações (mínimo 1).
+     */
+    public void setWallSmoothingIterations(int iterations)
+    {
+        this.wallSmoothingIterations = Math.max(1, iterations);
+    }
+
+    /**
+     * Define a distância que a órbita tenta manter da origem da onda: mais perto
+     * que isso a órbita se abre, mais longe ela se fecha.
+     * @param distance A distância preferida, ou 0 para orbitar sempre perpendicular.
+     */
+    public void setPreferredDistance(double distance)
+    {
+        this.preferredDistance = distance;
+    }
+
+    /**
+     * Simula o movimento até a onda alcançar o robô.
+     * @param start O estado atual (não é alterado).
+     * @param originX Origem da onda, horizontal.
+     * @param originY Origem da onda, vertical.
+     * @param fireTime Turno do disparo.
+     * @param bulletSpeed Velocidade da bala.
+     * @param option {@link #CLOCKWISE}, {@link #COUNTER_CLOCKWISE} ou {@link #STOP}.
+     * @param out Recebe o estado no turno de interceptação (pode ser o próprio start).
+     * @return Quantos turnos foram simulados.
+     */
+    public int predict(State start, double originX, double originY, long fireTime, double bulletSpeed,
+            int option, State out)
+    {
+        double x = start.x;
+        double y = start.y;
+        double heading = start.heading;
+        double velocity = start.velocity;
+        long time = start.time;
+
+        int ticks = 0;
+        while(ticks < MAX_TICKS && !reached(x, y, time, originX, originY, fireTime, bulletSpeed))
+        {
+            // 1. giro
+            double maxTurn = Rules.getTurnRateRadians(Math.abs(velocity));
+            int direction = 0;
+            if(option != STOP)
+            {
+                double angle = orbitAngle(x, y, originX, originY, option);
+                direction = 1;
+                double turn = FasterCalcs.normalRelativeAngle(angle - heading);
+                if(Math.abs(turn) > FasterCalcs.HALF_PI)
+                {
+                    // mais perto de ir de ré
+                    turn = FasterCalcs.normalRelativeAngle(turn + FasterCalcs.PI);
+                    direction = -1;
+                }
+                heading += Math.max(-maxTurn, Math.min(maxTurn, turn));
+            }
+
+            // 2. velocidade
+            velocity = newVelocity(velocity, direction);
+
+            // 3. deslocamento
+            FasterCalcs.sincos(heading, sinCos);
+            x += velocity * sinCos[0];
+            y += velocity * sinCos[1];
+            if(x < HALF_BOT || x > fieldWidth - HALF_BOT || y < HALF_BOT || y > fieldHeight - HALF_BOT)
+            {
+                x = Math.max(HALF_BOT, Math.min(fieldWidth - HALF_BOT, x));
+                y = Math.max(HALF_BOT, Math.min(fieldHeight - HALF_BOT, y));
+                velocity = 0;
+            }
+            time++;
+            ticks++;
+        }
+
+        out.set(x, y, FasterCalcs.normalAbsoluteAngle(heading), velocity, time);
+        return ticks;
+    }
+
+    /**
+     * @return true se a onda já alcançou o centro do robô no turno dado.
+     */
+    private static boolean reached(double x, double y, long time, double originX, double originY, long fireTime,
+            double bulletSpeed)
+    {
+        double radius = (time - fireTime) * bulletSpeed;
+        double dx = x - originX;
+        double dy = y - originY;
+        return radius * radius >= dx * dx + dy * dy;
+    }
+
+    /**
+     * Direção desejada para orbitar a origem, já com a correção de distância e o
+     * wall smoothing. É a mesma direção que a simulação segue a cada turno, então
+     * serve para executar no robô a opção escolhida.
+     * @param x Posição horizontal.
+     * @param y Posição vertical.
+     * @param originX Centro da órbita, horizontal.
+     * @param originY Centro da órbita, vertical.
+     * @param orbitDirection {@link #CLOCKWISE} ou {@link #COUNTER_CLOCKWISE}.
+     * @return A direção absoluta, em radianos.
+     */
+    public double orbitAngle(double x, double y, double originX, double originY, int orbitDirection)
+    {
+        double outward = FasterCalcs.atan2(x - originX, y - originY);
+        double attack = 0;
+        if(preferredDistance > 0)
+        {
+            double dx = x - originX;
+            double dy = y - originY;
+            double distance = Math.sqrt(dx * dx + dy * dy);
+            attack = Math.max(-MAX_ATTACK_ANGLE,
+                    Math.min(MAX_ATTACK_ANGLE, (preferredDistance - distance) * DISTANCING_GAIN));
+        }
+        return wallSmoothing(x, y, outward + orbitDirection * (FasterCalcs.HALF_PI - attack), orbitDirection,
+                wallSmoothingIterations, fieldWidth, fieldHeight, sinCos);
+    }
+
+    /**
+     * Gira o ângulo no sentido da órbita até um ponto à frente ficar longe das paredes.
+     * É o único wall smoothing do robô: a previsão e o movimento real andam igual.
+     * @param x Posição x.
+     * @param y Posição y.
+     * @param angle O ângulo desejado.
+     * @param orbitDirection Sentido do giro (1 ou -1).
+     * @param iterations Número de iterações (o giro total varrido é o mesmo).
+     * @param fieldWidth Largura do campo.
+     * @param fieldHeight Altura do campo.
+     * @param sinCos Área de trabalho de tamanho 2, para não alocar.
+     * @return O ângulo suavizado.
+     */
+    public static double wallSmoothing(double x, double y, double angle, int orbitDirection, int iterations,
+            double fieldWidth, double fieldHeight, double[] sinCos)
+    {
+        if(x > WALL_STICK + WALL_MARGIN && x < fieldWidth - WALL_STICK - WALL_MARGIN
+                && y > WALL_STICK + WALL_MARGIN && y < fieldHeight - WALL_STICK - WALL_MARGIN)
+        {
+            return angle; // longe de todas as paredes, qualquer direção serve
+        }
+        double step = WALL_SMOOTHING_SWEEP / iterations;
+        for(int i = 0; i < iterations; i++)
+        {
+            FasterCalcs.sincos(angle, sinCos);
+            double testX = x + sinCos[0] * WALL_STICK;
+            double testY = y + sinCos[1] * WALL_STICK;
+            if(testX > WALL_MARGIN && testX < fieldWidth - WALL_MARGIN
+                    && testY > WALL_MARGIN && testY < fieldHeight - WALL_MARGIN)
+            {
+                break;
+            }
+            angle += orbitDirection * step;
+        }
+        return angle;
+    }
+
+    /**
+     * Velocidade do próximo turno, como no motor do Robocode, para quem quer
+     * andar o máximo possível em um sentido ou parar.
+     * @param velocity Velocidade atual.
+     * @param direction 1 para frente, -1 para trás, 0 para parar.
+     * @return A nova velocidade.
+     */
+    public static double newVelocity(double velocity, int direction)
+    {
+        if(direction == 0)
+        {
+            return velocity > 0
+                    ? Math.max(0, velocity - Rules.DECELERATION)
+                    : Math.min(0, velocity + Rules.DECELERATION);
+        }
+        double speed = velocity * direction; // positiva se já estamos no sentido desejado
+        if(speed >= 0)
+        {
+            return direction * Math.min(Rules.MAX_VELOCITY, speed + Rules.ACCELERATION);
+        }
+        // Sentido contrário: freia; se cruzar o zero, acelera com o resto do turno.
+        double decelTime = -speed / Rules.DECELERATION;
+        if(decelTime >= 1)
+        {
+            return direction * (speed + Rules.DECELERATION);
+        }
+        return direction * (1 - decelTime) * Rules.ACCELERATION;
+    }
+}
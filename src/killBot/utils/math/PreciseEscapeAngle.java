@@ -0,0 +1,192 @@
+package killBot.utils.math;
+
+import java.util.Arrays;
+
+import robocode.Rules;
+import robocode.util.Utils;
+
+/**
+ * Ângulo máximo de escape preciso (precise MEA).
+ *
+ * O clássico {@code asin(8 / velocidadeDaBala)} supõe que o alvo já está na
+ * velocidade máxima e que o campo é infinito. Aqui o alvo é simulado orbitando
+ * quem atira, turno a turno, com as regras de movimento do Robocode (aceleração
+ * 1, frenagem 2, giro limitado) até a onda alcançá-lo, separadamente para cada
+ * lado: o ângulo no sentido horário (offset positivo) e no anti-horário
+ * (offset negativo). Um lado exige frear e inverter o movimento, e qualquer lado
+ * pode ser cortado pela parede.
+ *
+ * A simulação é feita em um referencial canônico (atirador na origem, alvo no
+ * eixo y, parede perpendicular ao sentido da órbita) e o resultado fica em uma
+ * tabela quantizada por potência, distância, espaço até a parede, velocidade
+ * lateral e sentido. Cada chave é simulada uma única vez; as demais consultas
+ * custam só a conta do espaço até a parede e a leitura da tabela.
+ */
+public class PreciseEscapeAngle {
+
+    private static final double POWER_STEP = 0.1;
+    private static final int POWER_BINS = 31; // 0.0 a 3.0
+    private static final double DISTANCE_STEP = 50;
+    private static final int DISTANCE_BINS = 25; // 50 a 1200
+    private static final double ROOM_STEP = 40;
+    private static final int ROOM_BINS = 26; // 0 a 1000 (o último vale "campo aberto")
+    private static final double SPEED_STEP = 4;
+    private static final int SPEED_BINS = 3; // 0, 4, 8
+    /** Meia largura do robô: o centro nunca chega mais perto da parede que isso. */
+    private static final double HALF_BOT = 18;
+    /** Limite de turnos simulados por chave. */
+    private static final int MAX_TICKS = 200;
+
+    /**
+     * Tabela de ângulos já simulados, NaN enquanto a chave não foi calculada.
+     * Estática porque depende só da física do jogo e vale para a batalha toda.
+     */
+    private static final float[] TABLE = new float[POWER_BINS * DISTANCE_BINS * ROOM_BINS * SPEED_BINS * 2];
+
+    static {
+        Arrays.fill(TABLE, Float.NaN);
+    }
+
+    /**
+     * Calcula os ângulos de escape do alvo nos dois sentidos.
+     *
+     * @param shooterX          posição x de quem atira
+     * @param shooterY          posição y de quem atira
+     * @param targetX           posição x do alvo
+     * @param targetY           posição y do alvo
+     * @param lateralVelocity   velocidade lateral do alvo (positiva = sentido horário)
+     * @param bulletPower       potência da bala
+     * @param battlefieldWidth  largura do campo
+     * @param battlefieldHeight altura do campo
+     * @param out               recebe em out[0] o ângulo horário e em out[1] o anti-horário (ambos positivos)
+     */
+    public static void compute(double shooterX, double shooterY, double targetX, double targetY,
+            double lateralVelocity, double bulletPower, double battlefieldWidth, double battlefieldHeight,
+            double[] out) {
+        double dx = targetX - shooterX;
+        double dy = targetY - shooterY;
+        double distance = Math.sqrt(dx * dx + dy * dy);
+        if (distance < 1) {
+            out[0] = out[1] = Math.PI / 2;
+            return;
+        }
+
+        // Sentido horário da órbita: direção do ângulo absoluto + 90 graus.
+        double tangentX = dy / distance;
+        double tangentY = -dx / distance;
+        double roomClockwise = room(targetX, targetY, tangentX, tangentY, battlefieldWidth, battlefieldHeight);
+        double roomCounterClockwise = room(targetX, targetY, -tangentX, -tangentY, battlefieldWidth,
+                battlefieldHeight);
+
+        double speed = Math.abs(lateralVelocity);
+        out[0] = lookup(bulletPower, distance, roomClockwise, speed, lateralVelocity < 0);
+        out[1] = lookup(bulletPower, distance, roomCounterClockwise, speed, lateralVelocity > 0);
+    }
+
+    /**
+     * Retorna o ângulo de escape de um lado, simulando a chave na primeira consulta.
+     *
+     * @param bulletPower potência da bala
+     * @param distance    distância entre atirador e alvo
+     * @param room        espaço do alvo até a parede no sentido avaliado
+     * @param speed       módulo da velocidade lateral do alvo
+     * @param reverse     true se o alvo está se movendo no sentido oposto ao avaliado
+     * @return o ângulo de escape, em radianos
+     */
+    public static double lookup(double bulletPower, double distance, double room, double speed, boolean reverse) {
+        int p = bin(bulletPower, POWER_STEP, POWER_BINS);
+        int d = Math.max(1, bin(distance, DISTANCE_STEP, DISTANCE_BINS));
+        int r = bin(room, ROOM_STEP, ROOM_BINS);
+        int s = bin(speed, SPEED_STEP, SPEED_BINS);
+        int key = (((p * DISTANCE_BINS + d) * ROOM_BINS + r) * SPEED_BINS + s) * 2 + (reverse ? 1 : 0);
+
+        float angle = TABLE[key];
+        if (angle != angle) { // NaN: ainda não simulado
+            double power = Math.max(Rules.MIN_BULLET_POWER, p * POWER_STEP);
+            double roomValue = r == ROOM_BINS - 1 ? Double.POSITIVE_INFINITY : r * ROOM_STEP;
+            angle = (float) simulate(Rules.getBulletSpeed(power), d * DISTANCE_STEP, roomValue,
+                    reverse ? -s * SPEED_STEP : s * SPEED_STEP);
+            TABLE[key] = angle;
+        }
+        return angle;
+    }
+
+    /**
+     * Simula o alvo orbitando no sentido +x do referencial canônico até a onda alcançá-lo.
+     *
+     * @param bulletSpeed velocidade da bala
+     * @param distance    distância inicial (alvo em (0, distance), atirador na origem)
+     * @param room        posição x da parede
+     * @param velocity    velocidade inicial (negativa se estiver indo no sentido oposto)
+     * @return o maior ângulo alcançado no sentido +x
+     */
+    private static double simulate(double bulletSpeed, double distance, double room, double velocity) {
+        double x = 0;
+        double y = distance;
+        double heading = Math.PI / 2;
+        double maxAngle = 0;
+
+        for (int t = 1; t <= MAX_TICKS; t++) {
+            velocity = nextVelocity(velocity);
+
+            // Mantém a direção perpendicular ao atirador, respeitando o giro máximo.
+            double desired = Math.atan2(x, y) + Math.PI / 2;
+            double maxTurn = Rules.getTurnRateRadians(velocity);
+            heading += AuxiliarFunctions.clamp(Utils.normalRelativeAngle(desired - heading),
+                    -maxTurn, maxTurn);
+
+            x += velocity * Math.sin(heading);
+            y += velocity * Math.cos(heading);
+            if (x > room) {
+                x = room; // bateu na parede e parou
+                velocity = 0;
+            }
+
+            maxAngle = Math.max(maxAngle, Math.atan2(x, y));
+            double travelled = t * bulletSpeed;
+            if (travelled * travelled >= x * x + y * y) {
+                break;
+            }
+        }
+        return maxAngle;
+    }
+
+    /**
+     * Velocidade do próximo turno para um robô que quer andar no sentido positivo
+     * na velocidade máxima: freia 2 por turno se estiver de ré e acelera 1 por turno.
+     */
+    private static double nextVelocity(double velocity) {
+        if (velocity >= 0) {
+            return Math.min(Rules.MAX_VELOCITY, velocity + Rules.ACCELERATION);
+        }
+        double braked = velocity + Rules.DECELERATION;
+        if (braked <= 0) {
+            return braked;
+        }
+        // Freou até parar no meio do turno e acelerou no tempo que sobrou.
+        double brakeTime = -velocity / Rules.DECELERATION;
+        return (1 - brakeTime) * Rules.ACCELERATION;
+    }
+
+    /**
+     * Distância que o alvo pode andar em uma direção até encostar na parede.
+     */
+    private static double room(double x, double y, double dirX, double dirY, double width, double height) {
+        double limit = Double.POSITIVE_INFINITY;
+        if (dirX > 1e-9) {
+            limit = Math.min(limit, (width - HALF_BOT - x) / dirX);
+        } else if (dirX < -1e-9) {
+            limit = Math.min(limit, (HALF_BOT - x) / dirX);
+        }
+        if (dirY > 1e-9) {
+            limit = Math.min(limit, (height - HALF_BOT - y) / dirY);
+        } else if (dirY < -1e-9) {
+            limit = Math.min(limit, (HALF_BOT - y) / dirY);
+        }
+        return Math.max(0, limit);
+    }
+
+    private static int bin(double value, double step, int bins) {
+        return Math.max(0, Math.min(bins - 1, (int) Math.round(value / step)));
+    }
+}